@@ -2,11 +2,9 @@ package be.ucll;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
-import org.springframework.scheduling.annotation.EnableScheduling;
 
 import io.github.cdimascio.dotenv.Dotenv;
 
-@EnableScheduling
 @SpringBootApplication
 public class ResqfoodApplication {
 	public static void main(String[] args) {
@@ -2,6 +2,7 @@ package be.ucll.config;
 
 import java.io.InputStream;
 
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.beans.factory.annotation.Value;
@@ -12,7 +13,9 @@ import com.google.firebase.FirebaseApp;
 import com.google.firebase.FirebaseOptions;
 import com.google.firebase.messaging.FirebaseMessaging;
 
+// Web nodes only write the outbox and never hold the Firebase client, see NotificationOutboxRelay
 @Configuration
+@ConditionalOnExpression("'${app.role:all}' != 'web'")
 public class FirebaseConfig {
   
   @Value("${firebase.service-account-path:serviceAccountKey.json}")
@@ -0,0 +1,37 @@
+package be.ucll.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import be.ucll.service.PushBackpressure;
+import be.ucll.service.PushLane;
+import be.ucll.service.PushPriority;
+import be.ucll.service.PushRateLimiter;
+
+// The PushDispatcher lanes, configured under push.lanes.high and push.lanes.low.
+@Configuration
+@ConditionalOnExpression("'${app.role:all}' != 'web'")
+public class PushLaneConfig {
+
+  @Bean
+  public PushLane highPushLane(
+      @Value("${push.lanes.high.queue-capacity:10000}") int queueCapacity,
+      @Value("${push.lanes.high.workers:24}") int workers,
+      @Value("${push.lanes.high.when-full:block}") PushBackpressure whenFull,
+      @Value("${push.lanes.high.rate-limit.per-second:50}") double perSecond,
+      @Value("${push.lanes.high.rate-limit.burst:50}") double burst) {
+    return new PushLane(PushPriority.HIGH, queueCapacity, workers, whenFull, new PushRateLimiter(perSecond, burst));
+  }
+
+  @Bean
+  public PushLane lowPushLane(
+      @Value("${push.lanes.low.queue-capacity:1000}") int queueCapacity,
+      @Value("${push.lanes.low.workers:8}") int workers,
+      @Value("${push.lanes.low.when-full:drop}") PushBackpressure whenFull,
+      @Value("${push.lanes.low.rate-limit.per-second:10}") double perSecond,
+      @Value("${push.lanes.low.rate-limit.burst:10}") double burst) {
+    return new PushLane(PushPriority.LOW, queueCapacity, workers, whenFull, new PushRateLimiter(perSecond, burst));
+  }
+}
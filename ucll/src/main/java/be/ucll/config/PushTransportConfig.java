@@ -0,0 +1,54 @@
+package be.ucll.config;
+
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.lang.Nullable;
+
+import com.google.firebase.messaging.FirebaseMessaging;
+
+import be.ucll.service.FakeFcmServer;
+import be.ucll.service.FcmPushTransport;
+import be.ucll.service.HttpPushTransport;
+import be.ucll.service.PushTransport;
+import be.ucll.service.RecordingPushTransport;
+
+// Selects the PushTransport with push.transport: fcm (default), stub or memory.
+@Configuration
+@ConditionalOnExpression("'${app.role:all}' != 'web'")
+public class PushTransportConfig {
+
+  @Bean
+  @ConditionalOnProperty(name = "push.transport", havingValue = "fcm", matchIfMissing = true)
+  public PushTransport fcmPushTransport(@Nullable FirebaseMessaging firebaseMessaging) {
+    return new FcmPushTransport(firebaseMessaging);
+  }
+
+  @Bean
+  @ConditionalOnProperty(name = "push.transport", havingValue = "memory")
+  public RecordingPushTransport recordingPushTransport() {
+    return new RecordingPushTransport();
+  }
+
+  @Bean(initMethod = "start", destroyMethod = "stop")
+  @ConditionalOnProperty(name = "push.transport", havingValue = "stub")
+  public FakeFcmServer fakeFcmServer(
+      @Value("${push.stub.port:0}") int port,
+      @Value("${push.stub.latency:PT0.05S}") Duration latency,
+      @Value("${push.stub.latency-jitter:PT0.02S}") Duration latencyJitter,
+      @Value("${push.stub.error-rate:0}") double errorRate,
+      @Value("${push.stub.unregistered-rate:0}") double unregisteredRate,
+      @Value("${push.stub.quota-per-second:0}") int quotaPerSecond) {
+    return new FakeFcmServer(port, latency, latencyJitter, errorRate, unregisteredRate, quotaPerSecond);
+  }
+
+  @Bean
+  @ConditionalOnProperty(name = "push.transport", havingValue = "stub")
+  public PushTransport httpPushTransport(FakeFcmServer fakeFcmServer) {
+    return new HttpPushTransport(fakeFcmServer.getUri());
+  }
+}
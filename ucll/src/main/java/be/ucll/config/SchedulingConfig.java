@@ -0,0 +1,12 @@
+package be.ucll.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+// Scheduled jobs run in the "all" (default) and "worker" roles; web nodes only serve requests.
+@Configuration
+@EnableScheduling
+@ConditionalOnExpression("'${app.role:all}' != 'web'")
+public class SchedulingConfig {
+}
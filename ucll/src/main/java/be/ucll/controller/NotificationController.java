@@ -8,35 +8,42 @@ import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import be.ucll.dto.NotificationCursor;
 import be.ucll.dto.NotificationDTO;
-import be.ucll.model.Notification;
+import be.ucll.dto.SnoozeRequest;
 import be.ucll.service.NotificationService;
+import jakarta.validation.Valid;
 
 @RestController
 @RequestMapping("/notifications")
 public class NotificationController {
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
     private final NotificationService notificationService;
 
     public NotificationController(NotificationService notificationService) {
         this.notificationService = notificationService;
     }
 
+    // Newest first, one page at a time. A full page comes with an X-Next-Cursor header; pass its value
+    // as cursor to get the page after it.
     @GetMapping
-    public List<NotificationDTO> getMyNotifications(Authentication auth) {
-        List<Notification> notifications = notificationService.getUserNotifications(auth.getName());
+    public ResponseEntity<List<NotificationDTO>> getMyNotifications(@RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + NotificationService.DEFAULT_PAGE_SIZE) int limit, Authentication auth) {
+        NotificationCursor after = cursor != null ? NotificationCursor.decode(cursor) : null;
+        List<NotificationDTO> notifications = notificationService.getUserNotifications(auth.getName(), after, limit);
 
-        return notifications.stream()
-                .map(n -> new NotificationDTO(
-                        n.getId(),
-                        n.getTitle(),
-                        n.getMessage(),
-                        n.getTimestamp(),
-                        n.isIsRead(),
-                        n.getRelatedItemId()))
-                .toList();
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (notifications.size() == limit) {
+            NotificationDTO last = notifications.get(notifications.size() - 1);
+            response.header(NEXT_CURSOR_HEADER, new NotificationCursor(last.timestamp(), last.id()).encode());
+        }
+        return response.body(notifications);
     }
 
     @PutMapping("/{id}/read")
@@ -45,6 +52,12 @@ public class NotificationController {
         return ResponseEntity.ok().build();
     }
 
+    @PutMapping("/{id}/snooze")
+    public ResponseEntity<Void> snooze(@PathVariable Long id, @Valid @RequestBody SnoozeRequest request, Authentication auth) {
+        notificationService.snooze(id, auth.getName(), request.until());
+        return ResponseEntity.ok().build();
+    }
+
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteNotification(@PathVariable Long id, Authentication auth) {
         notificationService.deleteNotification(id, auth.getName());
@@ -0,0 +1,8 @@
+package be.ucll.dto;
+
+import java.time.LocalDateTime;
+
+public record DeferredDeliveryDTO(
+  Long notificationId,
+  LocalDateTime deliverAt
+) {}
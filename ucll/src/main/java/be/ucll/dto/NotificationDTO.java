@@ -1,6 +1,7 @@
 package be.ucll.dto;
 
 import java.time.LocalDateTime;
+import java.util.List;
 
 public record NotificationDTO(
         Long id,
@@ -8,7 +9,8 @@ public record NotificationDTO(
         String message,
         LocalDateTime timestamp,
         boolean isRead,
-        Long relatedItemId
+        Long relatedItemId,
+        List<Long> relatedItemIds
 
 ) {
 }
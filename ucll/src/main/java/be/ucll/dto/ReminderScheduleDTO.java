@@ -0,0 +1,8 @@
+package be.ucll.dto;
+
+import java.time.LocalDateTime;
+
+public record ReminderScheduleDTO(
+  Long userItemId,
+  LocalDateTime nextReminderAt
+) {}
@@ -0,0 +1,11 @@
+package be.ucll.dto;
+
+import java.time.Instant;
+
+import jakarta.validation.constraints.NotNull;
+
+public record SnoozeRequest(
+        @NotNull(message = "Snooze time is required.")
+        Instant until
+) {
+}
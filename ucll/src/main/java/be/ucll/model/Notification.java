@@ -1,19 +1,32 @@
 package be.ucll.model;
 
 import java.time.LocalDateTime;
+import java.util.List;
 
+import be.ucll.service.PushPriority;
 import jakarta.persistence.Column;
+import jakarta.persistence.Convert;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
 
 @Entity
-@Table(name = "notifications", schema = "resqfood")
+@Table(name = "notifications", schema = "resqfood", indexes = {
+    @Index(name = "uq_notifications_dedup_key", columnList = "dedup_key", unique = true),
+    @Index(name = "idx_notifications_user_timestamp", columnList = "user_id, timestamp DESC, id DESC"),
+    @Index(name = "idx_notifications_user_id_id", columnList = "user_id, id"),
+    @Index(name = "idx_notifications_deliver_at", columnList = "deliver_at")
+})
 public class Notification {
+    public static final int MAX_RELATED_ITEM_IDS_LENGTH = 2000;
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -34,6 +47,28 @@ public class Notification {
 
     private Long relatedItemId;
 
+    // Set on digests, which cover several items at once
+    @Column(name = "related_item_ids", length = MAX_RELATED_ITEM_IDS_LENGTH)
+    @Convert(converter = LongListConverter.class)
+    private List<Long> relatedItemIds;
+
+    // Deterministic key of scheduler notifications, e.g. expiry:user:item:stage:date; the unique
+    // index makes the database drop a second insert of the same reminder
+    @Column(name = "dedup_key", length = 128)
+    private String dedupKey;
+
+    // UTC time a snoozed or held notification is to be delivered at, null for delivered ones. Until then it
+    // is left out of the user's list and no push is sent; on delivery it is replaced by a new, unread
+    // notification, see DeferredNotificationDispatcher
+    @Column(name = "deliver_at")
+    private LocalDateTime deliverAt;
+
+    // Priority the push of a deferred notification goes out with: LOW for ones held during peak hours,
+    // null (HIGH) for snoozed ones, which the user is waiting for
+    @Enumerated(EnumType.STRING)
+    @Column(name = "push_priority", length = 8)
+    private PushPriority pushPriority;
+
     public Notification() {
     }
 
@@ -86,6 +121,11 @@ public class Notification {
         this.timestamp = timestamp;
     }
 
+    // Read through "mark all as read"; is_read is only kept for notifications above the user's mark
+    public boolean isBelowReadMark() {
+        return this.id != null && this.id <= this.user.getLastReadNotificationId();
+    }
+
     public boolean isIsRead() {
         return this.isRead;
     }
@@ -106,4 +146,51 @@ public class Notification {
         this.relatedItemId = relatedItemId;
     }
 
+    public List<Long> getRelatedItemIds() {
+        return this.relatedItemIds;
+    }
+
+    // Keeps the leading ids that fit the column, like the message of a digest lists the first items only
+    public void setRelatedItemIds(List<Long> relatedItemIds) {
+        if (relatedItemIds == null) {
+            this.relatedItemIds = null;
+            return;
+        }
+
+        int length = -1;
+        int fitting = 0;
+        for (Long relatedItemId : relatedItemIds) {
+            length += String.valueOf(relatedItemId).length() + 1;
+            if (length > MAX_RELATED_ITEM_IDS_LENGTH) {
+                break;
+            }
+            fitting++;
+        }
+        this.relatedItemIds = fitting < relatedItemIds.size() ? List.copyOf(relatedItemIds.subList(0, fitting)) : relatedItemIds;
+    }
+
+    public String getDedupKey() {
+        return this.dedupKey;
+    }
+
+    public void setDedupKey(String dedupKey) {
+        this.dedupKey = dedupKey;
+    }
+
+    public LocalDateTime getDeliverAt() {
+        return this.deliverAt;
+    }
+
+    public void setDeliverAt(LocalDateTime deliverAt) {
+        this.deliverAt = deliverAt;
+    }
+
+    public PushPriority getPushPriority() {
+        return this.pushPriority;
+    }
+
+    public void setPushPriority(PushPriority pushPriority) {
+        this.pushPriority = pushPriority;
+    }
+
 }
@@ -0,0 +1,62 @@
+package be.ucll.model;
+
+import java.time.LocalDateTime;
+
+import be.ucll.service.PushPriority;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+
+// One pending push, written in the same transaction as its Notification and sent later by
+// NotificationOutboxRelay. Rows are read and written through NotificationOutboxRepository (JDBC).
+@Entity
+@Table(schema = "resqfood", name = "notification_outbox", indexes = {
+    @Index(name = "idx_notification_outbox_pending", columnList = "delivered_at, priority, id")
+})
+public class NotificationOutbox {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 512)
+    private String token;
+
+    @Column(nullable = false)
+    private String body;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 8)
+    private PushPriority priority;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    // A relay that claimed the row owns it until then; after that another relay may claim it again
+    @Column(name = "claimed_until")
+    private LocalDateTime claimedUntil;
+
+    @Column(name = "delivered_at")
+    private LocalDateTime deliveredAt;
+
+    @Column(nullable = false)
+    private int attempts;
+
+    protected NotificationOutbox() {}
+
+    public Long getId() { return this.id; }
+    public String getToken() { return this.token; }
+    public String getBody() { return this.body; }
+    public PushPriority getPriority() { return this.priority; }
+    public LocalDateTime getCreatedAt() { return this.createdAt; }
+    public LocalDateTime getClaimedUntil() { return this.claimedUntil; }
+    public LocalDateTime getDeliveredAt() { return this.deliveredAt; }
+    public int getAttempts() { return this.attempts; }
+}
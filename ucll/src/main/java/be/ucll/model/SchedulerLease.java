@@ -0,0 +1,54 @@
+package be.ucll.model;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+@Entity
+@Table(schema = "resqfood", name = "scheduler_leases")
+public class SchedulerLease {
+
+  @Id
+  @Column(name = "shard_id")
+  private Integer shardId;
+
+  @Column(name = "owner", length = 100)
+  private String owner;
+
+  @Column(name = "expires_at", nullable = false)
+  private LocalDateTime expiresAt;
+
+  // Rows changed or come due after this UTC instant are picked up by the next incremental run
+  @Column(name = "watermark")
+  private LocalDateTime watermark;
+
+  // UTC date of the last completed full pass over the shard
+  @Column(name = "full_pass_on")
+  private LocalDate fullPassOn;
+
+  protected SchedulerLease() {}
+
+  public SchedulerLease(Integer shardId, String owner, LocalDateTime expiresAt, LocalDateTime watermark, LocalDate fullPassOn) {
+    this.shardId = shardId;
+    this.owner = owner;
+    this.expiresAt = expiresAt;
+    this.watermark = watermark;
+    this.fullPassOn = fullPassOn;
+  }
+
+  // Getters
+  public Integer getShardId() { return this.shardId; }
+  public String getOwner() { return this.owner; }
+  public LocalDateTime getExpiresAt() { return this.expiresAt; }
+  public LocalDateTime getWatermark() { return this.watermark; }
+  public LocalDate getFullPassOn() { return this.fullPassOn; }
+
+  @Override
+  public String toString() {
+    return "SchedulerLease{shardId=" + this.shardId + ", owner=" + this.owner + ", expiresAt=" + this.expiresAt + ", watermark=" + this.watermark + ", fullPassOn=" + this.fullPassOn + "}";
+  }
+}
@@ -1,11 +1,16 @@
 package be.ucll.model;
 
+import java.time.DateTimeException;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.ArrayList;
 import java.util.List;
 
+import org.hibernate.annotations.ColumnDefault;
+
 import com.fasterxml.jackson.annotation.JsonIgnore;
 
+import be.ucll.exception.DomainException;
 import jakarta.persistence.CascadeType;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
@@ -73,6 +78,17 @@ public class User {
   @Column(name = "items_rescued", nullable = false)
   private int itemsRescued = 0;
 
+  // IANA zone id, e.g. "Europe/Brussels". Reminders are delivered in the morning of this zone.
+  @Column(name = "time_zone", length = 64)
+  private String timeZone;
+
+  // Every notification with an id up to this one counts as read ("mark all as read"), whatever its is_read.
+  // Only UserRepository#markAllNotificationsRead writes it, saving a User loaded earlier must not undo a newer mark
+  @JsonIgnore
+  @ColumnDefault("0")
+  @Column(name = "last_read_notification_id", nullable = false, insertable = false, updatable = false)
+  private long lastReadNotificationId = 0;
+
   public void incrementRescued() {
     this.itemsRescued++;
   }
@@ -133,6 +149,20 @@ public class User {
     return this.itemsRescued;
   }
 
+  public String getTimeZone() {
+    return this.timeZone;
+  }
+
+  public long getLastReadNotificationId() {
+    return this.lastReadNotificationId;
+  }
+
+  // Users without a time zone fall back to the server's zone
+  @JsonIgnore
+  public ZoneId getZoneId() {
+    return this.timeZone != null ? ZoneId.of(this.timeZone) : ZoneId.systemDefault();
+  }
+
   // Setters
   public void setUsername(String newUsername) {
     this.username = newUsername;
@@ -150,6 +180,17 @@ public class User {
     this.household = newHousehold;
   }
 
+  public void setTimeZone(String newTimeZone) {
+    if (newTimeZone != null) {
+      try {
+        ZoneId.of(newTimeZone);
+      } catch (DateTimeException e) {
+        throw new DomainException("Unknown time zone: " + newTimeZone);
+      }
+    }
+    this.timeZone = newTimeZone;
+  }
+
   // Helper Methods
   public void addUserItem(UserItem userItem) {
     if (!this.userItems.contains(userItem)) {
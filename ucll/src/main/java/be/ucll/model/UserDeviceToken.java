@@ -1,5 +1,7 @@
 package be.ucll.model;
 
+import org.hibernate.annotations.ColumnDefault;
+
 import com.fasterxml.jackson.annotation.JsonBackReference;
 
 import jakarta.persistence.Column;
@@ -31,6 +33,11 @@ public class UserDeviceToken {
     @Column(name = "device_name")
     private String deviceName;
 
+    // Consecutive pushes FCM rejected for this token, see DeviceTokenPruner
+    @Column(name = "failure_count", nullable = false)
+    @ColumnDefault("0")
+    private int failureCount;
+
     protected UserDeviceToken() {
     }
 
@@ -57,6 +64,10 @@ public class UserDeviceToken {
         return this.deviceName;
     }
 
+    public int getFailureCount() {
+        return this.failureCount;
+    }
+
     // Setters
     public void setId(Long newId) {
         this.id = newId;
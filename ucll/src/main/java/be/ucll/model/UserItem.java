@@ -1,14 +1,21 @@
 package be.ucll.model;
 
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
 
 import be.ucll.exception.DomainException;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
@@ -19,9 +26,20 @@ import jakarta.validation.constraints.Positive;
 import jakarta.validation.constraints.Size;
 
 @Entity
-@Table(schema = "resqfood", name = "users_items")
+@Table(schema = "resqfood", name = "users_items", indexes = {
+  @Index(name = "idx_users_items_next_reminder_at", columnList = "next_reminder_at"),
+  @Index(name = "idx_users_items_updated_at", columnList = "updated_at")
+})
+@EntityListeners(UserItemTimestampListener.class)
 public class UserItem {
 
+  // Days before the (effective) expiration date on which a reminder is sent.
+  public static final List<Long> REMINDER_DAYS = List.of(7L, 3L, 1L);
+
+  // Reminders go out between 09:00 and 12:00 in the user's time zone, each user at a fixed offset in that window.
+  public static final LocalTime REMINDER_WINDOW_START = LocalTime.of(9, 0);
+  public static final Duration REMINDER_WINDOW = Duration.ofHours(3);
+
   @Id
   @GeneratedValue(strategy = GenerationType.IDENTITY)
   private Long id;
@@ -46,6 +64,17 @@ public class UserItem {
 
   private LocalDateTime lastNotifiedAt;
 
+  @Column(name = "next_reminder_on")
+  private LocalDate nextReminderOn;
+
+  // UTC instant of the delivery slot on nextReminderOn, this is what the scheduler polls on
+  @Column(name = "next_reminder_at")
+  private LocalDateTime nextReminderAt;
+
+  // UTC, compared against the scheduler's change watermark
+  @Column(name = "updated_at", nullable = false)
+  private LocalDateTime updatedAt;
+
   @Column(name = "description", length = 128)
   @Size(min = 0, max = 128, message = "Description cannot be longer than 128 characters.")
   private String description;
@@ -148,6 +177,26 @@ public class UserItem {
     return this.description;
   }
 
+  public LocalDateTime getUpdatedAt() {
+    return this.updatedAt;
+  }
+
+  public LocalDateTime getNextReminderAt() {
+    return this.nextReminderAt;
+  }
+
+  public LocalDate getNextReminderOn() {
+    return this.nextReminderOn;
+  }
+
+  public LocalDate getEffectiveExpirationDate() {
+    if (this.openedDate != null) {
+      LocalDate openedExpiry = this.openedDate.plusDays(getOpenedRule());
+      return openedExpiry.isBefore(this.expirationDate) ? openedExpiry : this.expirationDate;
+    }
+    return this.expirationDate;
+  }
+
   // Setters
   public void setId(Long newId) {
     this.id = newId;
@@ -183,6 +232,62 @@ public class UserItem {
   public void setDescription(String newDescription) {
     this.description = newDescription;
   }
+
+  public void setNextReminderOn(LocalDate newNextReminderOn) {
+    this.nextReminderOn = newNextReminderOn;
+  }
+
+  public void setNextReminderAt(LocalDateTime newNextReminderAt) {
+    this.nextReminderAt = newNextReminderAt;
+  }
+
+  // Set by UserItemTimestampListener on every insert and update
+  public void setUpdatedAt(LocalDateTime newUpdatedAt) {
+    this.updatedAt = newUpdatedAt;
+  }
+
+  // Derives next_reminder_on from the reminder rule: 7, 3 and 1 days before the
+  // effective expiration date, then every day from the expiration date onwards.
+  // A reminder already sent today pushes the next one to tomorrow at the earliest.
+  // today is the current date in the user's time zone, next_reminder_at the matching delivery slot.
+  public void scheduleNextReminder(LocalDate today) {
+    this.nextReminderOn = nextReminderDate(today);
+    this.nextReminderAt = this.nextReminderOn != null ? deliverySlot(this.nextReminderOn) : null;
+  }
+
+  private LocalDate nextReminderDate(LocalDate today) {
+    if (this.expirationDate == null) {
+      return null;
+    }
+
+    LocalDate from = today;
+    if (this.lastNotifiedAt != null && !this.lastNotifiedAt.toLocalDate().isBefore(today)) {
+      from = today.plusDays(1);
+    }
+
+    LocalDate expiry = getEffectiveExpirationDate();
+    for (Long days : REMINDER_DAYS) {
+      LocalDate reminderDate = expiry.minusDays(days);
+      if (!reminderDate.isBefore(from)) {
+        return reminderDate;
+      }
+    }
+    return expiry.isBefore(from) ? from : expiry;
+  }
+
+  // Spreads users evenly over the delivery window so the load stays flat instead of peaking at its start
+  private LocalDateTime deliverySlot(LocalDate reminderOn) {
+    ZoneId zone = this.user != null ? this.user.getZoneId() : ZoneId.systemDefault();
+    long offsetSeconds = 0;
+    if (this.user != null && this.user.getId() != null) {
+      offsetSeconds = Math.floorMod(this.user.getId() * 2654435761L, REMINDER_WINDOW.toSeconds());
+    }
+    return reminderOn.atTime(REMINDER_WINDOW_START)
+        .atZone(zone)
+        .plusSeconds(offsetSeconds)
+        .withZoneSameInstant(ZoneOffset.UTC)
+        .toLocalDateTime();
+  }
   
   @Override
   public String toString() {
@@ -192,6 +297,8 @@ public class UserItem {
       ", expirationDate=" + this.expirationDate + 
       ", openedDate=" + this.openedDate + 
       ", openedRule=" + this.openedRule +
+      ", nextReminderOn=" + this.nextReminderOn +
+      ", nextReminderAt=" + this.nextReminderAt +
       ", description=" + this.description + 
     "}";
   }
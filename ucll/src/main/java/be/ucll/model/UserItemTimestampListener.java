@@ -0,0 +1,28 @@
+package be.ucll.model;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+import org.springframework.stereotype.Component;
+
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
+
+// Stamps updated_at from the application Clock, the same clock the scheduler compares it against.
+// Hibernate obtains this listener from the Spring context, so the Clock bean is injected.
+@Component
+public class UserItemTimestampListener {
+
+    private final Clock clock;
+
+    public UserItemTimestampListener(Clock clock) {
+        this.clock = clock;
+    }
+
+    @PrePersist
+    @PreUpdate
+    public void onUpdate(UserItem userItem) {
+        userItem.setUpdatedAt(LocalDateTime.ofInstant(clock.instant(), ZoneOffset.UTC));
+    }
+}
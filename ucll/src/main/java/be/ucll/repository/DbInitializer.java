@@ -132,7 +132,10 @@ public class DbInitializer {
         UserItem johnnutella1 = new UserItem(testUser, nutella, LocalDate.now().plusDays(467), 93);
         UserItem johntuna1 = new UserItem(testUser, tuna, LocalDate.now().plusDays(467));
 
-        userItemRepository.saveAll(List.of(sqmmi3milk1, sqmmi3milk2, sqmmi3milk3, sqmmi3bread1, sqmmi3eggs1, sqmmi3cheese1, sqmmi3cheese2, sqmmi3cheese3, johnsteak1, johnsteak2, johnmozzarella1, johnmozzarella2, johnnutella1, johntuna1));
+        List<UserItem> userItems = List.of(sqmmi3milk1, sqmmi3milk2, sqmmi3milk3, sqmmi3bread1, sqmmi3eggs1, sqmmi3cheese1, sqmmi3cheese2, sqmmi3cheese3, johnsteak1, johnsteak2, johnmozzarella1, johnmozzarella2, johnnutella1, johntuna1);
+        userItems.forEach(userItem -> userItem.scheduleNextReminder(LocalDate.now(userItem.getUser().getZoneId())));
+
+        userItemRepository.saveAll(userItems);
 
         logger.info("User_Item s seeded!");
       }
@@ -0,0 +1,68 @@
+package be.ucll.repository;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import be.ucll.model.LongListConverter;
+import be.ucll.model.Notification;
+
+// Notification ids are IDENTITY columns, so Hibernate inserts them one statement at a time.
+// Bulk writers (the expiry scheduler) go through a plain JDBC batch instead: one round trip per call.
+// Rows whose dedup_key already exists are skipped by the database, no read is needed up front.
+@Repository
+public class NotificationBatchRepository {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO resqfood.notifications (user_id, title, message, related_item_id, related_item_ids, dedup_key, timestamp, is_read, deliver_at, push_priority) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?) ON CONFLICT DO NOTHING";
+
+    private static final LongListConverter RELATED_ITEM_IDS = new LongListConverter();
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public NotificationBatchRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // Returns the notifications that were actually inserted
+    public List<Notification> insertAll(List<Notification> notifications) {
+        if (notifications.isEmpty()) {
+            return List.of();
+        }
+
+        int[][] updateCounts = jdbcTemplate.batchUpdate(INSERT_SQL, notifications, notifications.size(), (ps, notification) -> {
+            ps.setLong(1, notification.getUser().getId());
+            ps.setString(2, notification.getTitle());
+            ps.setString(3, notification.getMessage());
+            if (notification.getRelatedItemId() != null) {
+                ps.setLong(4, notification.getRelatedItemId());
+            } else {
+                ps.setNull(4, Types.BIGINT);
+            }
+            ps.setString(5, RELATED_ITEM_IDS.convertToDatabaseColumn(notification.getRelatedItemIds()));
+            ps.setString(6, notification.getDedupKey());
+            ps.setTimestamp(7, Timestamp.valueOf(notification.getTimestamp()));
+            ps.setBoolean(8, notification.getIsRead());
+            if (notification.getDeliverAt() != null) {
+                ps.setTimestamp(9, Timestamp.valueOf(notification.getDeliverAt()));
+            } else {
+                ps.setNull(9, Types.TIMESTAMP);
+            }
+            ps.setString(10, notification.getPushPriority() != null ? notification.getPushPriority().name() : null);
+        });
+
+        // A single batch, so its counts line up with the notifications
+        List<Notification> inserted = new ArrayList<>(notifications.size());
+        for (int i = 0; i < notifications.size(); i++) {
+            if (updateCounts[0][i] != 0) {
+                inserted.add(notifications.get(i));
+            }
+        }
+        return inserted;
+    }
+}
@@ -0,0 +1,125 @@
+package be.ucll.repository;
+
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import be.ucll.service.PushMessage;
+import be.ucll.service.PushPriority;
+
+// JDBC access to notification_outbox, see NotificationOutbox. All writes are single batches.
+@Repository
+public class NotificationOutboxRepository {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO resqfood.notification_outbox (token, body, priority, created_at, attempts) VALUES (?, ?, ?, ?, 0)";
+
+    // SKIP LOCKED lets concurrent relays claim disjoint rows without waiting on each other
+    private static final String SELECT_CLAIMABLE_SQL =
+            "SELECT id, token, body FROM resqfood.notification_outbox "
+            + "WHERE delivered_at IS NULL AND priority = ? AND attempts < ? AND (claimed_until IS NULL OR claimed_until < ?) "
+            + "ORDER BY id LIMIT ? FOR UPDATE SKIP LOCKED";
+
+    private static final String CLAIM_SQL =
+            "UPDATE resqfood.notification_outbox SET claimed_until = ?, attempts = attempts + 1 WHERE id = ?";
+
+    private static final String RETURN_ATTEMPT_SQL =
+            "UPDATE resqfood.notification_outbox SET attempts = attempts - 1 WHERE id = ? AND attempts > 0";
+
+    private static final String MARK_DELIVERED_SQL =
+            "UPDATE resqfood.notification_outbox SET delivered_at = ? WHERE id = ?";
+
+    // Dropped rows count as delivered: they are done and go with the next cleanup
+    private static final String DISCARD_SQL =
+            "UPDATE resqfood.notification_outbox SET delivered_at = ? "
+            + "WHERE delivered_at IS NULL AND priority = ? AND created_at < ? AND (claimed_until IS NULL OR claimed_until < ?)";
+
+    private static final String DISCARD_EXHAUSTED_SQL =
+            "UPDATE resqfood.notification_outbox SET delivered_at = ? "
+            + "WHERE delivered_at IS NULL AND priority = ? AND attempts >= ? AND (claimed_until IS NULL OR claimed_until < ?)";
+
+    private static final String DELETE_DELIVERED_SQL =
+            "DELETE FROM resqfood.notification_outbox WHERE delivered_at < ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Clock clock;
+
+    public NotificationOutboxRepository(JdbcTemplate jdbcTemplate, Clock clock) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.clock = clock;
+    }
+
+    // Joins the caller's transaction, so the pushes only exist once their notifications commit
+    public void insertAll(List<PushMessage> pushes) {
+        if (pushes.isEmpty()) {
+            return;
+        }
+
+        // Stored in UTC like the other scheduler timestamps
+        LocalDateTime now = LocalDateTime.ofInstant(clock.instant(), ZoneOffset.UTC);
+        jdbcTemplate.batchUpdate(INSERT_SQL, pushes, pushes.size(), (ps, push) -> {
+            ps.setString(1, push.token());
+            ps.setString(2, push.body());
+            ps.setString(3, push.priority().name());
+            ps.setTimestamp(4, Timestamp.valueOf(now));
+        });
+    }
+
+    // Claims up to limit undelivered rows of the given priority whose previous claim (if any) ran out before now.
+    // Rows already claimed maxAttempts times are left to discardExhausted.
+    @Transactional
+    public List<PushMessage> claim(PushPriority priority, int limit, int maxAttempts, LocalDateTime now, LocalDateTime claimedUntil) {
+        List<PushMessage> claimed = jdbcTemplate.query(SELECT_CLAIMABLE_SQL,
+                (rs, rowNum) -> new PushMessage(rs.getLong("id"), rs.getString("token"), rs.getString("body"), priority),
+                priority.name(), maxAttempts, Timestamp.valueOf(now), limit);
+        if (!claimed.isEmpty()) {
+            jdbcTemplate.batchUpdate(CLAIM_SQL, claimed, claimed.size(), (ps, push) -> {
+                ps.setTimestamp(1, Timestamp.valueOf(claimedUntil));
+                ps.setLong(2, push.outboxId());
+            });
+        }
+        return claimed;
+    }
+
+    // For claimed rows that were never sent, e.g. dropped by a full dispatch queue: they keep their claim
+    // and are relayed again once it runs out, without having used up one of their attempts
+    public void returnAttempts(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+
+        jdbcTemplate.batchUpdate(RETURN_ATTEMPT_SQL, ids, ids.size(), (ps, id) -> ps.setLong(1, id));
+    }
+
+    public void markDelivered(List<Long> ids, LocalDateTime now) {
+        if (ids.isEmpty()) {
+            return;
+        }
+
+        jdbcTemplate.batchUpdate(MARK_DELIVERED_SQL, ids, ids.size(), (ps, id) -> {
+            ps.setTimestamp(1, Timestamp.valueOf(now));
+            ps.setLong(2, id);
+        });
+    }
+
+    // Gives up on unclaimed rows of the given priority created before createdBefore
+    public int discardCreatedBefore(PushPriority priority, LocalDateTime createdBefore, LocalDateTime now) {
+        return jdbcTemplate.update(DISCARD_SQL, Timestamp.valueOf(now), priority.name(),
+                Timestamp.valueOf(createdBefore), Timestamp.valueOf(now));
+    }
+
+    // Gives up on rows of the given priority that were claimed maxAttempts times and still not delivered
+    public int discardExhausted(PushPriority priority, int maxAttempts, LocalDateTime now) {
+        return jdbcTemplate.update(DISCARD_EXHAUSTED_SQL, Timestamp.valueOf(now), priority.name(), maxAttempts, Timestamp.valueOf(now));
+    }
+
+    public int deleteDeliveredBefore(LocalDateTime before) {
+        return jdbcTemplate.update(DELETE_DELIVERED_SQL, Timestamp.valueOf(before));
+    }
+}
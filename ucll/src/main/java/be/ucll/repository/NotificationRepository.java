@@ -1,21 +1,50 @@
 package be.ucll.repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import be.ucll.dto.DeferredDeliveryDTO;
+import be.ucll.dto.NotificationDTO;
 import be.ucll.model.Notification;
 
 public interface NotificationRepository extends JpaRepository<Notification, Long> {
-    // Fetch all notification for user, sorted by newest first
-    List<Notification> findByUser_UsernameOrderByTimestampDesc(String username);
+    // See User#lastReadNotificationId
+    String IS_READ = "CASE WHEN n.isRead = true OR n.id <= u.lastReadNotificationId THEN true ELSE false END";
 
-    long countByUser_UsernameAndIsReadFalse(String username);
+    // A page of the user's delivered notifications, newest first, read straight into DTOs. Keyset pagination
+    // along idx_notifications_user_timestamp: every page costs the same, however old the account is.
+    @Query("SELECT new be.ucll.dto.NotificationDTO(n.id, n.title, n.message, n.timestamp, " + IS_READ + ", n.relatedItemId, n.relatedItemIds) "
+            + "FROM Notification n JOIN n.user u WHERE u.id = :userId AND n.deliverAt IS NULL ORDER BY n.timestamp DESC, n.id DESC")
+    List<NotificationDTO> findFeed(@Param("userId") Long userId, Limit limit);
 
+    @Query("SELECT new be.ucll.dto.NotificationDTO(n.id, n.title, n.message, n.timestamp, " + IS_READ + ", n.relatedItemId, n.relatedItemIds) "
+            + "FROM Notification n JOIN n.user u WHERE u.id = :userId AND n.deliverAt IS NULL "
+            + "AND (n.timestamp < :timestamp OR (n.timestamp = :timestamp AND n.id < :id)) ORDER BY n.timestamp DESC, n.id DESC")
+    List<NotificationDTO> findFeedBefore(@Param("userId") Long userId, @Param("timestamp") LocalDateTime timestamp,
+            @Param("id") Long id, Limit limit);
+
+    // Only the ids above the user's read mark are scanned, along idx_notifications_user_id_id
+    @Query("SELECT COUNT(n) FROM Notification n JOIN n.user u WHERE u.username = :username "
+            + "AND n.id > u.lastReadNotificationId AND n.isRead = false AND n.deliverAt IS NULL")
+    long countUnread(@Param("username") String username);
+
+    // Deferred deliveries due up to until, paged by id; served by idx_notifications_deliver_at
+    @Query("SELECT new be.ucll.dto.DeferredDeliveryDTO(n.id, n.deliverAt) FROM Notification n "
+            + "WHERE n.deliverAt IS NOT NULL AND n.deliverAt <= :until AND n.id > :afterId ORDER BY n.id")
+    List<DeferredDeliveryDTO> findDeferredDeliveriesAfter(@Param("afterId") Long afterId, @Param("until") LocalDateTime until, Limit limit);
+
+    // Only succeeds while deliver_at is unchanged, so a delivery is sent once even if several nodes hold it
     @Modifying
-    @Query("UPDATE Notification n SET n.isRead = true WHERE n.user.username = :username AND n.isRead = false")
-    void markAllAsRead(@Param("username") String username);
+    @Query("DELETE FROM Notification n WHERE n.id = :id AND n.deliverAt = :deliverAt")
+    int deleteDeferred(@Param("id") Long id, @Param("deliverAt") LocalDateTime deliverAt);
+
+    @Query("SELECT n FROM Notification n JOIN FETCH n.user u LEFT JOIN FETCH u.deviceTokens WHERE n.id IN :ids")
+    List<Notification> findWithDeviceTokensByIdIn(@Param("ids") Collection<Long> ids);
 }
@@ -0,0 +1,38 @@
+package be.ucll.repository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import be.ucll.model.SchedulerLease;
+
+public interface SchedulerLeaseRepository extends JpaRepository<SchedulerLease, Integer> {
+    // Creates the lease row for a shard; a no-op when another node already did
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO resqfood.scheduler_leases (shard_id, expires_at) VALUES (:shardId, :expiresAt) ON CONFLICT DO NOTHING", nativeQuery = true)
+    int createIfAbsent(@Param("shardId") Integer shardId, @Param("expiresAt") LocalDateTime expiresAt);
+
+    // Takes a free or expired lease, or extends one this owner already holds
+    @Transactional
+    @Modifying
+    @Query("UPDATE SchedulerLease l SET l.owner = :owner, l.expiresAt = :until WHERE l.shardId = :shardId AND (l.owner = :owner OR l.expiresAt < :now)")
+    int tryAcquire(@Param("shardId") Integer shardId, @Param("owner") String owner, @Param("now") LocalDateTime now, @Param("until") LocalDateTime until);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE SchedulerLease l SET l.expiresAt = :now WHERE l.shardId = :shardId AND l.owner = :owner")
+    int release(@Param("shardId") Integer shardId, @Param("owner") String owner, @Param("now") LocalDateTime now);
+
+    // Only the current holder may move the shard's watermark forward
+    @Transactional
+    @Modifying
+    @Query("UPDATE SchedulerLease l SET l.watermark = :watermark, l.fullPassOn = :fullPassOn WHERE l.shardId = :shardId AND l.owner = :owner")
+    int advanceWatermark(@Param("shardId") Integer shardId, @Param("owner") String owner,
+            @Param("watermark") LocalDateTime watermark, @Param("fullPassOn") LocalDate fullPassOn);
+}
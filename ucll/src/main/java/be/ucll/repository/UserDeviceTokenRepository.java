@@ -1,13 +1,34 @@
 package be.ucll.repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import be.ucll.model.UserDeviceToken;
 
 public interface UserDeviceTokenRepository extends JpaRepository<UserDeviceToken, Long> {
   List<UserDeviceToken> findAllByUserId(Long userId);
   Optional<UserDeviceToken> findByToken(String token);
+
+  @Modifying
+  @Query("DELETE FROM UserDeviceToken t WHERE t.token IN :tokens")
+  int deleteByTokenIn(@Param("tokens") Collection<String> tokens);
+
+  @Modifying
+  @Query("UPDATE UserDeviceToken t SET t.failureCount = t.failureCount + 1 WHERE t.token IN :tokens")
+  int incrementFailureCount(@Param("tokens") Collection<String> tokens);
+
+  @Modifying
+  @Query("DELETE FROM UserDeviceToken t WHERE t.token IN :tokens AND t.failureCount >= :maxFailures")
+  int deleteFailing(@Param("tokens") Collection<String> tokens, @Param("maxFailures") int maxFailures);
+
+  // Only touches rows that had failures, so a healthy batch writes nothing
+  @Modifying
+  @Query("UPDATE UserDeviceToken t SET t.failureCount = 0 WHERE t.token IN :tokens AND t.failureCount > 0")
+  int resetFailureCount(@Param("tokens") Collection<String> tokens);
 }
@@ -0,0 +1,68 @@
+package be.ucll.repository;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import be.ucll.model.UserItem;
+
+// Writes the scheduler's reminder bookkeeping back in one JDBC batch. Every item has its own
+// delivery slot, so grouping them into a few bulk UPDATEs is not possible.
+// Each row is only written when updated_at still holds the value that was read: a user who edited
+// the item in the meantime keeps their change, and the next run picks the row up as changed.
+@Repository
+public class UserItemBatchRepository {
+
+    private static final String UPDATE_REMINDERS_SQL =
+            "UPDATE resqfood.users_items SET last_notified_at = ?, next_reminder_on = ?, next_reminder_at = ?, updated_at = ? WHERE id = ? AND updated_at = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Clock clock;
+
+    public UserItemBatchRepository(JdbcTemplate jdbcTemplate, Clock clock) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.clock = clock;
+    }
+
+    // Returns the number of rows that were left untouched because they changed since they were read
+    public int updateReminders(List<UserItem> userItems) {
+        if (userItems.isEmpty()) {
+            return 0;
+        }
+
+        Timestamp updatedAt = Timestamp.valueOf(LocalDateTime.ofInstant(clock.instant(), ZoneOffset.UTC));
+
+        int[][] updated = jdbcTemplate.batchUpdate(UPDATE_REMINDERS_SQL, userItems, userItems.size(), (ps, userItem) -> {
+            if (userItem.getLastNotifiedAt() != null) {
+                ps.setTimestamp(1, Timestamp.valueOf(userItem.getLastNotifiedAt()));
+            } else {
+                ps.setNull(1, Types.TIMESTAMP);
+            }
+            ps.setObject(2, userItem.getNextReminderOn(), Types.DATE);
+            if (userItem.getNextReminderAt() != null) {
+                ps.setTimestamp(3, Timestamp.valueOf(userItem.getNextReminderAt()));
+            } else {
+                ps.setNull(3, Types.TIMESTAMP);
+            }
+            ps.setTimestamp(4, updatedAt);
+            ps.setLong(5, userItem.getId());
+            ps.setTimestamp(6, Timestamp.valueOf(userItem.getUpdatedAt()));
+        });
+
+        int skipped = 0;
+        for (int[] batch : updated) {
+            for (int count : batch) {
+                if (count == 0) {
+                    skipped++;
+                }
+            }
+        }
+        return skipped;
+    }
+}
@@ -1,22 +1,60 @@
 package be.ucll.repository;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
+import be.ucll.dto.ReminderScheduleDTO;
 import be.ucll.model.User;
 import be.ucll.model.UserItem;
+import jakarta.persistence.QueryHint;
 
 public interface UserItemRepository extends JpaRepository<UserItem, Long>{
     List<UserItem> findByUser_Username(String username);
 
     List<UserItem> findByUser_Household_Id(Long householdId);
     
-    @Query("SELECT ui FROM UserItem ui WHERE ui.expirationDate <= :limitDate OR ui.openedDate IS NOT NULL")
-    List<UserItem> findPotentialExpiries(@Param("limitDate") LocalDate limitDate);
+    // Read-only: the scheduler writes its changes back through UserItemBatchRepository instead of dirty checking.
+    // The candidate queries fetch user, household and item in the same row; device tokens are a collection and would
+    // break the LIMIT, the scheduler loads those with one extra query per chunk.
+    // now is the current UTC time, next_reminder_at already accounts for the user's time zone.
+    // Only rows that came due or were changed after since are returned; a full pass passes a since before any row.
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    @Query("SELECT ui FROM UserItem ui JOIN FETCH ui.user u LEFT JOIN FETCH u.household JOIN FETCH ui.item "
+            + "WHERE ui.nextReminderAt <= :now AND (ui.nextReminderAt > :since OR ui.updatedAt > :since) "
+            + "AND MOD(u.id, :shardCount) = :shardIndex AND ui.id > :afterId ORDER BY ui.id")
+    List<UserItem> findDueRemindersAfter(@Param("afterId") Long afterId, @Param("now") LocalDateTime now, @Param("since") LocalDateTime since,
+            @Param("shardIndex") int shardIndex, @Param("shardCount") int shardCount, Limit limit);
+
+    // Digest mode pages by user instead of by item, so all of a user's due items land in the same chunk
+    @Query("SELECT DISTINCT ui.user.id FROM UserItem ui WHERE ui.nextReminderAt <= :now AND (ui.nextReminderAt > :since OR ui.updatedAt > :since) "
+            + "AND MOD(ui.user.id, :shardCount) = :shardIndex AND ui.user.id > :afterUserId ORDER BY ui.user.id")
+    List<Long> findDueReminderUsersAfter(@Param("afterUserId") Long afterUserId, @Param("now") LocalDateTime now, @Param("since") LocalDateTime since,
+            @Param("shardIndex") int shardIndex, @Param("shardCount") int shardCount, Limit limit);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    @Query("SELECT ui FROM UserItem ui JOIN FETCH ui.user u LEFT JOIN FETCH u.household JOIN FETCH ui.item "
+            + "WHERE ui.nextReminderAt <= :now AND u.id IN :userIds ORDER BY u.id, ui.id")
+    List<UserItem> findDueRemindersForUsers(@Param("userIds") Collection<Long> userIds, @Param("now") LocalDateTime now);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    @Query("SELECT ui FROM UserItem ui JOIN FETCH ui.user u LEFT JOIN FETCH u.household JOIN FETCH ui.item WHERE ui.id IN :ids")
+    List<UserItem> findByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT new be.ucll.dto.ReminderScheduleDTO(ui.id, ui.nextReminderAt) FROM UserItem ui WHERE ui.nextReminderAt IS NOT NULL AND ui.id > :afterId ORDER BY ui.id")
+    List<ReminderScheduleDTO> findReminderSchedulesAfter(@Param("afterId") Long afterId, Limit limit);
+
+    // Includes rows whose reminder was cleared, so the caller can drop them
+    @Query("SELECT new be.ucll.dto.ReminderScheduleDTO(ui.id, ui.nextReminderAt) FROM UserItem ui WHERE ui.updatedAt > :since AND ui.id > :afterId ORDER BY ui.id")
+    List<ReminderScheduleDTO> findReminderSchedulesChangedAfter(@Param("since") LocalDateTime since, @Param("afterId") Long afterId, Limit limit);
 
     @Query("SELECT COUNT(ui) FROM UserItem ui WHERE ui.user = :user AND ui.expirationDate < CURRENT_DATE")
     int countExpiredItemsForUser(@Param("user") User user);
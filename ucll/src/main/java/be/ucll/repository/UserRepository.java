@@ -1,14 +1,38 @@
 package be.ucll.repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
 import be.ucll.model.User;
+import jakarta.persistence.QueryHint;
 
 public interface UserRepository extends JpaRepository<User, Long> {
   Optional<User> findByUsername(String username);
+
+  @Query("SELECT u.id FROM User u WHERE u.username = :username")
+  Optional<Long> findIdByUsername(@Param("username") String username);
+
+  // "Mark all as read": moves the read mark up to the user's newest notification, a single row update
+  // however many notifications are unread. The mark never moves down.
+  @Modifying
+  @Query("UPDATE User u SET u.lastReadNotificationId = COALESCE("
+      + "(SELECT MAX(n.id) FROM Notification n WHERE n.user = u AND n.id > u.lastReadNotificationId), u.lastReadNotificationId) "
+      + "WHERE u.username = :username")
+  int markAllNotificationsRead(@Param("username") String username);
   Optional<User> findByEmail(String email);
   boolean existsByUsername(String username);
   boolean existsByEmail(String email);
+
+  // Initializes deviceTokens of users already in the persistence context with one query instead of one per user
+  @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+  @Query("SELECT DISTINCT u FROM User u LEFT JOIN FETCH u.deviceTokens WHERE u.id IN :ids")
+  List<User> findWithDeviceTokensByIdIn(@Param("ids") Collection<Long> ids);
 }
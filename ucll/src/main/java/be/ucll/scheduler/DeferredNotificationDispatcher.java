@@ -0,0 +1,178 @@
+package be.ucll.scheduler;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import be.ucll.dto.DeferredDeliveryDTO;
+import be.ucll.repository.NotificationRepository;
+import be.ucll.service.NotificationService;
+import jakarta.annotation.PreDestroy;
+
+// Sends snoozed and held notifications once their deliver_at comes due. The database is the source of
+// truth: deliveries due within the horizon are copied into a DelayQueue that one virtual thread blocks
+// on, so a scheduled delivery costs nothing until it is due. The queue is refilled from the deliver_at
+// index on startup and every refill-interval, which also picks up deliveries deferred on other nodes and
+// everything that came due while no node was running. Every worker node holds its own queue,
+// NotificationService#deliverDeferred makes sure each delivery is sent once.
+@Component
+@ConditionalOnExpression("'${app.role:all}' != 'web'")
+public class DeferredNotificationDispatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(DeferredNotificationDispatcher.class);
+
+    private final NotificationRepository notificationRepository;
+    private final NotificationService notificationService;
+    private final Clock clock;
+    private final Duration horizon;
+    private final int batchSize;
+    private final DelayQueue<DeferredDelivery> queue = new DelayQueue<>();
+    // deliver_at each queued notification was queued with, so refills do not queue it twice
+    private final Map<Long, LocalDateTime> queued = new ConcurrentHashMap<>();
+    private volatile Thread worker;
+
+    public DeferredNotificationDispatcher(NotificationRepository notificationRepository, NotificationService notificationService,
+            Clock clock, @Value("${notifications.deferred.horizon:PT10M}") Duration horizon,
+            @Value("${notifications.deferred.refill-interval:60000}") long refillInterval,
+            @Value("${notifications.deferred.batch-size:500}") int batchSize) {
+        // A delivery due right after a refill must already be in the queue by then
+        if (horizon.toMillis() <= refillInterval) {
+            throw new IllegalArgumentException("notifications.deferred.horizon must be longer than the refill interval");
+        }
+        this.notificationRepository = notificationRepository;
+        this.notificationService = notificationService;
+        this.clock = clock;
+        this.horizon = horizon;
+        this.batchSize = batchSize;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        refill();
+        worker = Thread.ofVirtual().name("deferred-notification-dispatcher").start(this::run);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (worker != null) {
+            worker.interrupt();
+        }
+    }
+
+    // Queues every delivery due within the horizon that is not queued yet
+    @Scheduled(fixedDelayString = "${notifications.deferred.refill-interval:60000}", initialDelayString = "${notifications.deferred.refill-interval:60000}")
+    public void refill() {
+        LocalDateTime until = now().plus(horizon);
+
+        Long cursor = 0L;
+        List<DeferredDeliveryDTO> page;
+        do {
+            page = notificationRepository.findDeferredDeliveriesAfter(cursor, until, Limit.of(batchSize));
+            page.forEach(delivery -> schedule(delivery.notificationId(), delivery.deliverAt()));
+            if (!page.isEmpty()) {
+                cursor = page.get(page.size() - 1).notificationId();
+            }
+        } while (page.size() == batchSize);
+    }
+
+    // Deliveries further out than the horizon are left to a later refill
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onNotificationDeferred(NotificationDeferredEvent event) {
+        if (!event.deliverAt().isAfter(now().plus(horizon))) {
+            schedule(event.notificationId(), event.deliverAt());
+        }
+    }
+
+    // Sends what is due right now; the worker thread does the same as soon as a delivery comes due
+    public int deliverDue() {
+        List<DeferredDelivery> due = new ArrayList<>();
+        queue.drainTo(due, batchSize);
+        return deliver(due);
+    }
+
+    public int size() {
+        return queue.size();
+    }
+
+    private void schedule(Long notificationId, LocalDateTime deliverAt) {
+        // A notification snoozed again keeps its old entry, deliverDeferred skips that one
+        if (!deliverAt.equals(queued.put(notificationId, deliverAt))) {
+            queue.add(new DeferredDelivery(notificationId, deliverAt));
+        }
+    }
+
+    private void run() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                List<DeferredDelivery> due = new ArrayList<>();
+                due.add(queue.take());
+                queue.drainTo(due, batchSize - 1);
+                deliver(due);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private int deliver(List<DeferredDelivery> due) {
+        if (due.isEmpty()) {
+            return 0;
+        }
+
+        due.forEach(delivery -> queued.remove(delivery.notificationId, delivery.deliverAt));
+        try {
+            return notificationService.deliverDeferred(due.stream()
+                    .map(delivery -> new DeferredDeliveryDTO(delivery.notificationId, delivery.deliverAt))
+                    .toList());
+        } catch (RuntimeException e) {
+            // Their deliver_at is still set, so the next refill queues them again
+            logger.error("Failed to deliver {} deferred notifications, retrying on the next refill", due.size(), e);
+            return 0;
+        }
+    }
+
+    // deliver_at is stored in UTC
+    private LocalDateTime now() {
+        return LocalDateTime.ofInstant(clock.instant(), ZoneOffset.UTC);
+    }
+
+    private final class DeferredDelivery implements Delayed {
+
+        private final Long notificationId;
+        private final LocalDateTime deliverAt;
+
+        private DeferredDelivery(Long notificationId, LocalDateTime deliverAt) {
+            this.notificationId = notificationId;
+            this.deliverAt = deliverAt;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(Duration.between(now(), deliverAt));
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return deliverAt.compareTo(((DeferredDelivery) other).deliverAt);
+        }
+    }
+}
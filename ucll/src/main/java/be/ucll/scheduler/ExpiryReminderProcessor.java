@@ -0,0 +1,245 @@
+package be.ucll.scheduler;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+
+import be.ucll.dto.ReminderScheduleDTO;
+import be.ucll.model.Notification;
+import be.ucll.model.User;
+import be.ucll.model.UserItem;
+import be.ucll.repository.UserItemBatchRepository;
+import be.ucll.repository.UserItemRepository;
+import be.ucll.repository.UserRepository;
+import be.ucll.service.NotificationService;
+import be.ucll.service.PushPriority;
+import jakarta.transaction.Transactional;
+
+@Component
+public class ExpiryReminderProcessor {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExpiryReminderProcessor.class);
+
+    private static final int MAX_MESSAGE_LENGTH = 255;
+
+    private final UserItemRepository userItemRepository;
+    private final UserItemBatchRepository userItemBatchRepository;
+    private final UserRepository userRepository;
+    private final NotificationService notificationService;
+    private final ReminderDelivery delivery;
+
+    public ExpiryReminderProcessor(UserItemRepository userItemRepository, UserItemBatchRepository userItemBatchRepository,
+            UserRepository userRepository, NotificationService notificationService,
+            @Value("${scheduler.expiry.delivery:per-item}") ReminderDelivery delivery) {
+        this.userItemRepository = userItemRepository;
+        this.userItemBatchRepository = userItemBatchRepository;
+        this.userRepository = userRepository;
+        this.notificationService = notificationService;
+        this.delivery = delivery;
+    }
+
+    // Processes one keyset page in its own transaction.
+    // Returns the id to resume after, or null once the scan is complete.
+    // Pages are keyed by user item id, or by user id in digest mode. now is the current UTC time,
+    // only rows that came due or changed after since are considered.
+    @Transactional
+    public Long processChunk(LocalDateTime now, LocalDateTime since, Shard shard, Long afterId, int chunkSize) {
+        if (delivery == ReminderDelivery.DIGEST) {
+            return processUserChunk(now, since, shard, afterId, chunkSize);
+        }
+
+        List<UserItem> candidates = userItemRepository.findDueRemindersAfter(
+                afterId, now, since, shard.index(), shard.count(), Limit.of(chunkSize));
+
+        processAll(candidates, now);
+
+        if (candidates.size() < chunkSize) {
+            return null;
+        }
+        return candidates.get(candidates.size() - 1).getId();
+    }
+
+    // A digest always covers all of the user's due items, not only the changed ones
+    private Long processUserChunk(LocalDateTime now, LocalDateTime since, Shard shard, Long afterUserId, int chunkSize) {
+        List<Long> userIds = userItemRepository.findDueReminderUsersAfter(
+                afterUserId, now, since, shard.index(), shard.count(), Limit.of(chunkSize));
+        if (userIds.isEmpty()) {
+            return null;
+        }
+
+        processAll(userItemRepository.findDueRemindersForUsers(userIds, now), now);
+
+        if (userIds.size() < chunkSize) {
+            return null;
+        }
+        return userIds.get(userIds.size() - 1);
+    }
+
+    // Processes the given items (as fired by the timing wheel) in one transaction and
+    // returns their new delivery slots so the caller can re-schedule them.
+    // Due items of users outside the held shards are left to the node that holds them and get no slot back:
+    // that node fires them from its own wheel, and the slot it writes comes back through the next sync.
+    @Transactional
+    public List<ReminderScheduleDTO> processItems(Collection<Long> userItemIds, LocalDateTime now, Collection<Shard> heldShards) {
+        List<UserItem> userItems = userItemRepository.findByIdIn(userItemIds).stream()
+                .filter(userItem -> !isDue(userItem, now) || heldShards.stream().anyMatch(shard -> shard.owns(userItem.getUser().getId())))
+                .toList();
+
+        processAll(userItems.stream().filter(userItem -> isDue(userItem, now)).toList(), now);
+
+        return userItems.stream()
+                .map(userItem -> new ReminderScheduleDTO(userItem.getId(), userItem.getNextReminderAt()))
+                .toList();
+    }
+
+    private static boolean isDue(UserItem userItem, LocalDateTime now) {
+        return userItem.getNextReminderAt() != null && !userItem.getNextReminderAt().isAfter(now);
+    }
+
+    // The candidates are loaded read-only: every change is collected first and then written with
+    // one JDBC batch for the notifications and one for the user items.
+    // Reminder days and lastNotifiedAt are evaluated in each user's own time zone.
+    private void processAll(List<UserItem> userItems, LocalDateTime now) {
+        if (userItems.isEmpty()) {
+            return;
+        }
+
+        // Pushes need every user's device tokens: load them for the whole chunk at once
+        userRepository.findWithDeviceTokensByIdIn(userItems.stream().map(userItem -> userItem.getUser().getId()).distinct().toList());
+
+        List<Notification> notifications = new ArrayList<>();
+        Map<User, List<UserItem>> dueByUser = new LinkedHashMap<>();
+
+        for (UserItem userItem : userItems) {
+            ZonedDateTime userNow = userNow(userItem.getUser(), now);
+            LocalDate today = userNow.toLocalDate();
+            String message = reminderMessage(userItem, today);
+            if (message != null) {
+                if (delivery == ReminderDelivery.DIGEST) {
+                    dueByUser.computeIfAbsent(userItem.getUser(), user -> new ArrayList<>()).add(userItem);
+                } else {
+                    notifications.add(expiryAlert(userItem, message, today));
+                }
+                userItem.setLastNotifiedAt(userNow.toLocalDateTime());
+            }
+
+            // Due items that did not match a reminder day (e.g. after a missed run) move on to the next one
+            userItem.scheduleNextReminder(today);
+        }
+
+        dueByUser.forEach((user, due) -> notifications.add(digest(user, due, userNow(user, now).toLocalDate())));
+
+        // Use NotificationService for DB persistance and Push notification
+        notificationService.createAndSendNotifications(notifications, PushPriority.HIGH);
+        int changed = userItemBatchRepository.updateReminders(userItems);
+        if (changed > 0) {
+            logger.debug("Kept {} user item(s) edited during the run, their new schedule is picked up as a change", changed);
+        }
+    }
+
+    private ZonedDateTime userNow(User user, LocalDateTime now) {
+        return now.atZone(ZoneOffset.UTC).withZoneSameInstant(user.getZoneId());
+    }
+
+    // Summarises all due items of one user, soonest first. A single due item keeps the regular alert.
+    private Notification digest(User user, List<UserItem> due, LocalDate today) {
+        if (due.size() == 1) {
+            UserItem userItem = due.get(0);
+            return expiryAlert(userItem, determineMessage(userItem.getItem().getName(), daysUntilExpiry(userItem, today)), today);
+        }
+
+        List<UserItem> soonestFirst = due.stream()
+                .sorted(Comparator.comparing(UserItem::getEffectiveExpirationDate))
+                .toList();
+
+        StringBuilder message = new StringBuilder(due.size() + " items need your attention: ");
+        int listed = 0;
+        for (UserItem userItem : soonestFirst) {
+            String part = (listed == 0 ? "" : ", ")
+                    + describeExpiry(userItem.getItem().getName(), daysUntilExpiry(userItem, today));
+            // Keep room for the " and N more" suffix
+            if (message.length() + part.length() > MAX_MESSAGE_LENGTH - 16) {
+                break;
+            }
+            message.append(part);
+            listed++;
+        }
+        if (listed < soonestFirst.size()) {
+            message.append(" and ").append(soonestFirst.size() - listed).append(" more");
+        }
+
+        Notification digest = new Notification(user, "Expiry Digest", message.toString(), null);
+        digest.setRelatedItemIds(soonestFirst.stream().map(UserItem::getId).toList());
+        // A later digest on the same day only covers items that came due since, so it gets its own key
+        String itemIds = due.stream().map(UserItem::getId).sorted().map(String::valueOf).collect(Collectors.joining(","));
+        digest.setDedupKey("digest:" + user.getId() + ":" + UUID.nameUUIDFromBytes(itemIds.getBytes(StandardCharsets.UTF_8)) + ":" + today);
+        return digest;
+    }
+
+    private Notification expiryAlert(UserItem userItem, String message, LocalDate today) {
+        Notification notification = new Notification(userItem.getUser(), "Expiry Alert", message, userItem.getId());
+        notification.setDedupKey("expiry:" + userItem.getUser().getId() + ":" + userItem.getId() + ":"
+                + reminderStage(daysUntilExpiry(userItem, today)) + ":" + today);
+        return notification;
+    }
+
+    private String reminderStage(long daysUntil) {
+        return daysUntil < 0 ? "expired" : "d" + daysUntil;
+    }
+
+    private String reminderMessage(UserItem userItem, LocalDate today) {
+        if (!shouldSendReminder(userItem, today))
+            return null;
+
+        return determineMessage(userItem.getItem().getName(), daysUntilExpiry(userItem, today));
+    }
+
+    private long daysUntilExpiry(UserItem userItem, LocalDate today) {
+        return ChronoUnit.DAYS.between(today, userItem.getEffectiveExpirationDate());
+    }
+
+    private String describeExpiry(String itemName, long daysUntil) {
+        if (daysUntil < 0)
+            return itemName + " has expired";
+        if (daysUntil == 0)
+            return itemName + " expires today";
+        if (daysUntil == 1)
+            return itemName + " expires tomorrow";
+        return itemName + " expires in " + daysUntil + " days";
+    }
+
+    private String determineMessage(String itemName, long daysUntil) {
+        if (daysUntil == 0)
+            return "Your " + itemName + " expires today!";
+        if (daysUntil < 0)
+            return "Your " + itemName + " has expired!";
+        if (UserItem.REMINDER_DAYS.contains(daysUntil)) {
+            if (daysUntil == 1L) { return "Reminder: your " + itemName + " expires tomorrow!"; }
+            return "Reminder: your " + itemName + " expires in " + daysUntil + " days!";
+        }
+        return null;
+    }
+
+    private boolean shouldSendReminder(UserItem userItem, LocalDate today) {
+        if (userItem.getLastNotifiedAt() == null)
+            return true;
+        return userItem.getLastNotifiedAt().toLocalDate().isBefore(today);
+    }
+}
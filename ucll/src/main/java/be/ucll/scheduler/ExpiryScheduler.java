@@ -1,94 +1,169 @@
 package be.ucll.scheduler;
 
+import java.time.Clock;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.temporal.ChronoUnit;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
-import be.ucll.model.UserItem;
-import be.ucll.repository.UserItemRepository;
-import be.ucll.service.NotificationService;
-import jakarta.transaction.Transactional;
+import be.ucll.model.SchedulerLease;
+import jakarta.annotation.PreDestroy;
 
 @Component
+@ConditionalOnProperty(name = "scheduler.expiry.engine", havingValue = "polling", matchIfMissing = true)
 public class ExpiryScheduler {
 
     private static final Logger logger = LoggerFactory.getLogger(ExpiryScheduler.class);
 
-    private final UserItemRepository userItemRepository;
-    private final NotificationService notificationService;
-
-    private static final List<Long> REMINDER_DAYS = List.of(7L, 3L, 1L);
+    // Lies before every delivery slot and every updated_at, so a run from here covers the whole shard
+    private static final LocalDateTime FULL_PASS = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private final ExpiryReminderProcessor expiryReminderProcessor;
+    private final ShardLeaseManager shardLeaseManager;
+    private final Clock clock;
+    private final int chunkSize;
+    private final Duration watermarkLag;
+    private final int parallelism;
+    // Shared by every run, null without parallelism
+    private final ExecutorService workers;
+
+    public ExpiryScheduler(ExpiryReminderProcessor expiryReminderProcessor, ShardLeaseManager shardLeaseManager,
+            Clock clock, @Value("${scheduler.expiry.chunk-size:500}") int chunkSize,
+            @Value("${scheduler.expiry.watermark-lag:PT1M}") Duration watermarkLag,
+            @Value("${scheduler.expiry.parallelism:1}") int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("scheduler.expiry.parallelism must be at least 1");
+        }
+        this.expiryReminderProcessor = expiryReminderProcessor;
+        this.shardLeaseManager = shardLeaseManager;
+        this.clock = clock;
+        this.chunkSize = chunkSize;
+        this.watermarkLag = watermarkLag;
+        this.parallelism = parallelism;
+        this.workers = parallelism > 1
+                ? Executors.newFixedThreadPool(parallelism, Thread.ofPlatform().name("expiry-scheduler-", 0).factory())
+                : null;
+    }
 
-    public ExpiryScheduler(UserItemRepository userItemRepository, NotificationService notificationService) {
-        this.userItemRepository = userItemRepository;
-        this.notificationService = notificationService;
+    @PreDestroy
+    public void shutdown() {
+        if (workers != null) {
+            workers.shutdownNow();
+        }
     }
 
     // @Scheduled(cron = "0 0 9 * * *")
     @Scheduled(fixedDelay = 60000) // 360 000ms -> 360s -> 6 mins
-    @Transactional
     public void checkExpiries() {
         logger.info("Running expiry scheduler...");
 
-        LocalDate today = LocalDate.now();
-        LocalDate sevenDaysFromNow = today.plusDays(7);
-
-        List<UserItem> candidates = userItemRepository.findPotentialExpiries(sevenDaysFromNow);
+        // Delivery slots are stored in UTC, see UserItem#scheduleNextReminder
+        LocalDateTime now = LocalDateTime.ofInstant(clock.instant(), ZoneOffset.UTC);
 
-        for (UserItem userItem : candidates) {
-            if (!shouldSendReminder(userItem))
-                continue;
-
-            LocalDate expiryDate = calculateExpiryDate(userItem);
-            long daysUntilExpiry = ChronoUnit.DAYS.between(today, expiryDate);
+        // Every replica runs this; the shard lease makes sure only one of them scans a given shard at a time.
+        Queue<ShardScan> scans = new ConcurrentLinkedQueue<>();
+        for (Shard shard : shardLeaseManager.shards()) {
+            if (shardLeaseManager.tryAcquire(shard)) {
+                scans.add(startScan(shard, now));
+            }
+        }
 
-            String message = determineMessage(userItem.getItem().getName(), daysUntilExpiry);
+        if (parallelism == 1 || scans.size() <= 1) {
+            scanAll(scans, now);
+            return;
+        }
 
-            if (message != null) {
-                sendNotification(userItem, message);
-                userItem.setLastNotifiedAt(LocalDateTime.now());
+        List<Future<?>> runs = new ArrayList<>();
+        try {
+            for (int i = 0; i < Math.min(parallelism, scans.size()); i++) {
+                runs.add(workers.submit(() -> scanAll(scans, now)));
             }
+            for (Future<?> run : runs) {
+                run.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            logger.error("Expiry scheduler worker failed", e.getCause());
+        } finally {
+            runs.forEach(run -> run.cancel(true));
+            // Leases of scans a failed or interrupted worker left behind
+            scans.forEach(scan -> shardLeaseManager.release(scan.shard));
         }
     }
 
-    private String determineMessage(String itemName, long daysUntil) {
-        if (daysUntil == 0)
-            return "Your " + itemName + " expires today!";
-        if (daysUntil < 0)
-            return "Your " + itemName + " has expired!";
-        if (REMINDER_DAYS.contains(daysUntil)) {
-            if (daysUntil == 1L) { return "Reminder: your " + itemName + " expires tomorrow!"; }
-            return "Reminder: your " + itemName + " expires in " + daysUntil + " days!";
-        }
-        return null;
+    // The first run of a (UTC) day scans every due row of the shard, later runs only rows that came
+    // due or were changed since the last completed run.
+    private ShardScan startScan(Shard shard, LocalDateTime now) {
+        LocalDate today = now.toLocalDate();
+        SchedulerLease lease = shardLeaseManager.lease(shard).orElse(null);
+        boolean fullPass = lease == null || lease.getWatermark() == null
+                || lease.getFullPassOn() == null || lease.getFullPassOn().isBefore(today);
+        return new ShardScan(shard, fullPass ? FULL_PASS : lease.getWatermark(), fullPass ? today : lease.getFullPassOn());
     }
 
-    private LocalDate calculateExpiryDate(UserItem userItem) {
-        if (userItem.getOpenedDate() != null) {
-            LocalDate openedExpiry = userItem.getOpenedDate().plusDays(userItem.getOpenedRule());
-            return openedExpiry.isBefore(userItem.getExpirationDate()) ? openedExpiry : userItem.getExpirationDate();
+    // Takes one chunk of a shard at a time and puts the shard back at the end of the queue, so the
+    // workers go round-robin over the shards and one large shard does not hold up the others.
+    // Every chunk commits on its own, so a failure only rolls back the chunk it happened in.
+    private void scanAll(Queue<ShardScan> scans, LocalDateTime now) {
+        ShardScan scan;
+        while ((scan = scans.poll()) != null) {
+            if (processNextChunk(scan, now)) {
+                scans.add(scan);
+            }
         }
-        return userItem.getExpirationDate();
     }
 
-    private boolean shouldSendReminder(UserItem userItem) {
-        if (userItem.getLastNotifiedAt() == null)
-            return true;
-        return userItem.getLastNotifiedAt().toLocalDate().isBefore(LocalDate.now());
+    // Returns whether the shard has chunks left
+    private boolean processNextChunk(ShardScan scan, LocalDateTime now) {
+        boolean done = false;
+        try {
+            scan.cursor = expiryReminderProcessor.processChunk(now, scan.since, scan.shard, scan.cursor, chunkSize);
+            if (scan.cursor == null) {
+                // Lag behind now so rows written by transactions that were still open during this run are not skipped
+                shardLeaseManager.advanceWatermark(scan.shard, now.minus(watermarkLag), scan.fullPassOn);
+                done = true;
+            } else if (!shardLeaseManager.tryAcquire(scan.shard)) {
+                logger.warn("Lost the lease on shard {}, leaving the rest of it to its new owner", scan.shard.index());
+                done = true;
+            }
+        } catch (RuntimeException e) {
+            logger.error("Expiry scheduler aborted shard {} after id {}, remaining items are retried on the next run", scan.shard.index(), scan.cursor, e);
+            done = true;
+        } finally {
+            if (done) {
+                shardLeaseManager.release(scan.shard);
+            }
+        }
+        return !done;
     }
 
-    private void sendNotification(UserItem userItem, String message) {
-        // Use NotificationService for DB persistance and Push notification
-        notificationService.createAndSendNotification(
-                userItem.getUser(),
-                "Expiry Alert",
-                message,
-                userItem.getId());
+    private static class ShardScan {
+
+        private final Shard shard;
+        private final LocalDateTime since;
+        private final LocalDate fullPassOn;
+        private Long cursor = 0L;
+
+        private ShardScan(Shard shard, LocalDateTime since, LocalDate fullPassOn) {
+            this.shard = shard;
+            this.since = since;
+            this.fullPassOn = fullPassOn;
+        }
     }
 }
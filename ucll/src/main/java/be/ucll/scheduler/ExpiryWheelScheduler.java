@@ -0,0 +1,139 @@
+package be.ucll.scheduler;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import be.ucll.dto.ReminderScheduleDTO;
+import be.ucll.repository.UserItemRepository;
+
+// Alternative to the polling ExpiryScheduler: keeps every next_reminder_at in memory and
+// only touches the database for reminders that actually came due. Changes made on this node arrive as
+// ReminderRescheduledEvents; changes made on other nodes (e.g. web nodes in split roles) are read back
+// from the updated_at index every sync-interval.
+@Component
+@ConditionalOnProperty(name = "scheduler.expiry.engine", havingValue = "wheel")
+public class ExpiryWheelScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExpiryWheelScheduler.class);
+
+    private final UserItemRepository userItemRepository;
+    private final ExpiryReminderProcessor expiryReminderProcessor;
+    private final ShardLeaseManager shardLeaseManager;
+    private final Clock clock;
+    private final int chunkSize;
+    private final Duration watermarkLag;
+    private final ReminderTimingWheel wheel;
+    // Rows changed after this are read back by the next sync
+    private volatile LocalDateTime syncedUntil;
+
+    public ExpiryWheelScheduler(UserItemRepository userItemRepository, ExpiryReminderProcessor expiryReminderProcessor,
+            ShardLeaseManager shardLeaseManager, Clock clock, @Value("${scheduler.expiry.chunk-size:500}") int chunkSize,
+            @Value("${scheduler.expiry.watermark-lag:PT1M}") Duration watermarkLag) {
+        this.userItemRepository = userItemRepository;
+        this.expiryReminderProcessor = expiryReminderProcessor;
+        this.shardLeaseManager = shardLeaseManager;
+        this.clock = clock;
+        this.chunkSize = chunkSize;
+        this.watermarkLag = watermarkLag;
+        this.wheel = new ReminderTimingWheel(now());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+
+    // Reloads the wheel from the database, e.g. to recover after rows were changed outside the services.
+    public void rebuild() {
+        LocalDateTime now = now();
+        wheel.reset(now);
+        syncedUntil = now.minus(watermarkLag);
+
+        Long cursor = 0L;
+        List<ReminderScheduleDTO> page;
+        do {
+            page = userItemRepository.findReminderSchedulesAfter(cursor, Limit.of(chunkSize));
+            page.forEach(schedule -> wheel.schedule(schedule.userItemId(), schedule.nextReminderAt()));
+            if (!page.isEmpty()) {
+                cursor = page.get(page.size() - 1).userItemId();
+            }
+        } while (page.size() == chunkSize);
+
+        logger.info("Loaded {} reminders into the timing wheel", wheel.size());
+    }
+
+    // Re-schedules every item changed since the last sync. The lag covers transactions that committed late,
+    // re-reading a row twice only schedules it again.
+    @Scheduled(fixedDelayString = "${scheduler.expiry.wheel.sync-interval:60000}", initialDelayString = "${scheduler.expiry.wheel.sync-interval:60000}")
+    public void sync() {
+        LocalDateTime since = syncedUntil;
+        LocalDateTime next = now().minus(watermarkLag);
+
+        Long cursor = 0L;
+        List<ReminderScheduleDTO> page;
+        do {
+            page = userItemRepository.findReminderSchedulesChangedAfter(since, cursor, Limit.of(chunkSize));
+            page.forEach(schedule -> wheel.schedule(schedule.userItemId(), schedule.nextReminderAt()));
+            if (!page.isEmpty()) {
+                cursor = page.get(page.size() - 1).userItemId();
+            }
+        } while (page.size() == chunkSize);
+
+        syncedUntil = next;
+    }
+
+    // Only reads memory until an item's delivery slot has passed.
+    @Scheduled(fixedDelayString = "${scheduler.expiry.wheel.tick:60000}")
+    public void tick() {
+        LocalDateTime now = now();
+        List<Long> fired = wheel.advanceTo(now);
+        if (fired.isEmpty()) {
+            return;
+        }
+
+        logger.info("Timing wheel fired {} reminders", fired.size());
+
+        // Every replica keeps its own wheel; due items of shards leased by another node are dropped from this one.
+        List<Shard> heldShards = shardLeaseManager.shards().stream()
+                .filter(shardLeaseManager::tryAcquire)
+                .toList();
+        try {
+            for (int from = 0; from < fired.size(); from += chunkSize) {
+                List<Long> chunk = fired.subList(from, Math.min(from + chunkSize, fired.size()));
+                try {
+                    expiryReminderProcessor.processItems(chunk, now, heldShards)
+                            .forEach(schedule -> wheel.schedule(schedule.userItemId(), schedule.nextReminderAt()));
+                } catch (RuntimeException e) {
+                    logger.error("Failed to process {} fired reminders, retrying on the next tick", chunk.size(), e);
+                    chunk.forEach(userItemId -> wheel.schedule(userItemId, now));
+                }
+            }
+        } finally {
+            heldShards.forEach(shardLeaseManager::release);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onReminderRescheduled(ReminderRescheduledEvent event) {
+        wheel.schedule(event.userItemId(), event.nextReminderAt());
+    }
+
+    // Delivery slots are stored in UTC
+    private LocalDateTime now() {
+        return LocalDateTime.ofInstant(clock.instant(), ZoneOffset.UTC);
+    }
+}
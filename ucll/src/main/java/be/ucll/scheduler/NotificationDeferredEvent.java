@@ -0,0 +1,9 @@
+package be.ucll.scheduler;
+
+import java.time.LocalDateTime;
+
+// Published whenever a notification's deliver_at is set, e.g. when it is snoozed.
+public record NotificationDeferredEvent(
+    Long notificationId,
+    LocalDateTime deliverAt
+) {}
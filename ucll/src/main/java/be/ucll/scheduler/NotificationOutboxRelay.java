@@ -0,0 +1,127 @@
+package be.ucll.scheduler;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import be.ucll.repository.NotificationOutboxRepository;
+import be.ucll.service.PushCircuitBreaker;
+import be.ucll.service.PushDispatcher;
+import be.ucll.service.PushMessage;
+import be.ucll.service.PushMetrics;
+import be.ucll.service.PushPriority;
+
+// Moves pending pushes from notification_outbox to the PushDispatcher. Runs wherever scheduling
+// is enabled; web nodes only write the outbox and have no push stack (dispatcher, transport, Firebase) at all. Several relays can run at once, see
+// NotificationOutboxRepository#claim. Lanes are relayed highest priority first.
+@Component
+@ConditionalOnExpression("'${app.role:all}' != 'web'")
+public class NotificationOutboxRelay {
+
+    private static final Logger logger = LoggerFactory.getLogger(NotificationOutboxRelay.class);
+
+    private final NotificationOutboxRepository notificationOutboxRepository;
+    private final PushDispatcher pushDispatcher;
+    private final PushCircuitBreaker pushCircuitBreaker;
+    private final PushMetrics pushMetrics;
+    private final Clock clock;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final Duration claimTimeout;
+    private final Duration retention;
+    private final Duration lowPriorityMaxAge;
+
+    public NotificationOutboxRelay(NotificationOutboxRepository notificationOutboxRepository, PushDispatcher pushDispatcher,
+            PushCircuitBreaker pushCircuitBreaker, PushMetrics pushMetrics, Clock clock,
+            @Value("${push.outbox.batch-size:500}") int batchSize,
+            @Value("${push.outbox.max-attempts:5}") int maxAttempts,
+            @Value("${push.outbox.claim-timeout:PT2M}") Duration claimTimeout,
+            @Value("${push.outbox.retention:P1D}") Duration retention,
+            @Value("${push.outbox.low-priority-max-age:PT5M}") Duration lowPriorityMaxAge) {
+        this.notificationOutboxRepository = notificationOutboxRepository;
+        this.pushDispatcher = pushDispatcher;
+        this.pushCircuitBreaker = pushCircuitBreaker;
+        this.pushMetrics = pushMetrics;
+        this.clock = clock;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.claimTimeout = claimTimeout;
+        this.retention = retention;
+        this.lowPriorityMaxAge = lowPriorityMaxAge;
+    }
+
+    @Scheduled(fixedDelayString = "${push.outbox.poll-interval:1000}", initialDelayString = "${push.outbox.poll-interval:1000}")
+    public void relay() {
+        // While FCM is failing the pushes wait in the outbox instead of piling up in memory
+        if (pushCircuitBreaker.isOpen()) {
+            return;
+        }
+        // A lane only gets its turn once every lane above it is fully handed over
+        for (PushPriority priority : PushPriority.values()) {
+            if (!relay(priority)) {
+                return;
+            }
+        }
+    }
+
+    // Returns whether every claimable row of the lane was handed to the dispatcher
+    private boolean relay(PushPriority priority) {
+        // A push that kept failing with a retryable error (e.g. one FCM always answers INTERNAL to) is given up on
+        int exhausted = notificationOutboxRepository.discardExhausted(priority, maxAttempts, now());
+        if (exhausted > 0) {
+            pushMetrics.recordOutboxExhausted(priority, exhausted);
+            logger.warn("Gave up on {} {} priority pushes after {} attempts", exhausted, priority, maxAttempts);
+        }
+        if (priority == PushPriority.LOW) {
+            // A confirmation that waited this long is not worth sending any more
+            LocalDateTime now = now();
+            int dropped = notificationOutboxRepository.discardCreatedBefore(priority, now.minus(lowPriorityMaxAge), now);
+            if (dropped > 0) {
+                logger.warn("Dropped {} low priority pushes older than {}", dropped, lowPriorityMaxAge);
+            }
+        }
+        while (true) {
+            // Only claim what the dispatcher can take, the rest stays available to other relays
+            int limit = Math.min(batchSize, pushDispatcher.remainingCapacity(priority));
+            if (limit == 0) {
+                return false;
+            }
+            LocalDateTime now = now();
+            List<PushMessage> pushes = notificationOutboxRepository.claim(priority, limit, maxAttempts, now, now.plus(claimTimeout));
+            // Only a push that was actually handed over counts as an attempt
+            List<Long> dropped = pushes.stream()
+                    .filter(push -> !pushDispatcher.submit(push))
+                    .map(PushMessage::outboxId)
+                    .toList();
+            if (!dropped.isEmpty()) {
+                notificationOutboxRepository.returnAttempts(dropped);
+                return false;
+            }
+            if (pushes.size() < limit) {
+                return true;
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${push.outbox.cleanup-interval:3600000}", initialDelayString = "${push.outbox.cleanup-interval:3600000}")
+    public void deleteDelivered() {
+        int deleted = notificationOutboxRepository.deleteDeliveredBefore(now().minus(retention));
+        if (deleted > 0) {
+            logger.info("Deleted {} delivered outbox rows", deleted);
+        }
+    }
+
+    // Outbox timestamps are stored in UTC
+    private LocalDateTime now() {
+        return LocalDateTime.ofInstant(clock.instant(), ZoneOffset.UTC);
+    }
+}
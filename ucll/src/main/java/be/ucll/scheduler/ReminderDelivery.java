@@ -0,0 +1,9 @@
+package be.ucll.scheduler;
+
+// How due expiry reminders are turned into notifications (scheduler.expiry.delivery).
+public enum ReminderDelivery {
+    // One notification and push per due user item
+    PER_ITEM,
+    // One notification and push per user, summarising all of their due items
+    DIGEST
+}
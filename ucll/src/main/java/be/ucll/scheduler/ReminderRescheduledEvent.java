@@ -0,0 +1,9 @@
+package be.ucll.scheduler;
+
+import java.time.LocalDateTime;
+
+// Published whenever a user item's next_reminder_at is written or the item is removed (nextReminderAt == null).
+public record ReminderRescheduledEvent(
+    Long userItemId,
+    LocalDateTime nextReminderAt
+) {}
@@ -0,0 +1,129 @@
+package be.ucll.scheduler;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Two-level hierarchical timing wheel of user item ids keyed by epoch day.
+ * Level 0 has one slot per day for the next 64 days, level 1 one slot per
+ * 64-day block for the next 64 blocks. Anything further out waits in an
+ * overflow set that is re-placed whenever a new block starts.
+ * Within the current day entries wait in the due set until their exact time.
+ */
+public class ReminderTimingWheel {
+
+    private static final int SLOTS = 64;
+
+    private final List<Set<Long>> days = createSlots();
+    private final List<Set<Long>> blocks = createSlots();
+    private final Set<Long> overflow = new HashSet<>();
+    private final Set<Long> due = new HashSet<>();
+    private final Map<Long, LocalDateTime> scheduled = new HashMap<>();
+
+    private long currentDay;
+
+    public ReminderTimingWheel(LocalDateTime now) {
+        reset(now);
+    }
+
+    // Empties the wheel; entries scheduled for now or earlier are returned by the next advanceTo(now).
+    public synchronized void reset(LocalDateTime now) {
+        days.forEach(Set::clear);
+        blocks.forEach(Set::clear);
+        overflow.clear();
+        due.clear();
+        scheduled.clear();
+        currentDay = now.toLocalDate().toEpochDay() - 1;
+    }
+
+    public synchronized void schedule(Long userItemId, LocalDateTime reminderAt) {
+        remove(userItemId);
+        if (reminderAt == null) {
+            return;
+        }
+        scheduled.put(userItemId, reminderAt);
+        place(userItemId, day(reminderAt));
+    }
+
+    public synchronized void remove(Long userItemId) {
+        LocalDateTime reminderAt = scheduled.remove(userItemId);
+        if (reminderAt == null) {
+            return;
+        }
+        long day = day(reminderAt);
+        due.remove(userItemId);
+        days.get(slot(day)).remove(userItemId);
+        blocks.get(slot(day / SLOTS)).remove(userItemId);
+        overflow.remove(userItemId);
+    }
+
+    // Moves the wheel forward to the given time and returns every entry that came due, removing them from the wheel.
+    public synchronized List<Long> advanceTo(LocalDateTime now) {
+        long target = day(now);
+        while (currentDay < target) {
+            currentDay++;
+            if (currentDay % SLOTS == 0) {
+                cascade(blocks.get(slot(currentDay / SLOTS)));
+                cascade(overflow);
+            }
+            Set<Long> slot = days.get(slot(currentDay));
+            due.addAll(slot);
+            slot.clear();
+        }
+
+        List<Long> fired = new ArrayList<>();
+        for (Long userItemId : due) {
+            if (!scheduled.get(userItemId).isAfter(now)) {
+                fired.add(userItemId);
+            }
+        }
+        fired.forEach(userItemId -> {
+            due.remove(userItemId);
+            scheduled.remove(userItemId);
+        });
+        return fired;
+    }
+
+    public synchronized int size() {
+        return scheduled.size();
+    }
+
+    private void place(Long userItemId, long day) {
+        if (day <= currentDay) {
+            due.add(userItemId);
+        } else if (day - currentDay < SLOTS) {
+            days.get(slot(day)).add(userItemId);
+        } else if (day / SLOTS - currentDay / SLOTS < SLOTS) {
+            blocks.get(slot(day / SLOTS)).add(userItemId);
+        } else {
+            overflow.add(userItemId);
+        }
+    }
+
+    private void cascade(Set<Long> source) {
+        List<Long> ids = new ArrayList<>(source);
+        source.clear();
+        ids.forEach(id -> place(id, day(scheduled.get(id))));
+    }
+
+    private static long day(LocalDateTime dateTime) {
+        return dateTime.toLocalDate().toEpochDay();
+    }
+
+    private static int slot(long value) {
+        return (int) Math.floorMod(value, (long) SLOTS);
+    }
+
+    private static List<Set<Long>> createSlots() {
+        List<Set<Long>> slots = new ArrayList<>(SLOTS);
+        for (int i = 0; i < SLOTS; i++) {
+            slots.add(new HashSet<>());
+        }
+        return slots;
+    }
+}
@@ -0,0 +1,11 @@
+package be.ucll.scheduler;
+
+// One of `count` partitions of the user base; a user belongs to shard user_id mod count.
+public record Shard(
+    int index,
+    int count
+) {
+    public boolean owns(Long userId) {
+        return Math.floorMod(userId, (long) count) == index;
+    }
+}
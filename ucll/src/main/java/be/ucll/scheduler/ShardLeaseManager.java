@@ -0,0 +1,88 @@
+package be.ucll.scheduler;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import be.ucll.model.SchedulerLease;
+import be.ucll.repository.SchedulerLeaseRepository;
+
+// Elects at most one node per user shard through a row in scheduler_leases.
+@Component
+public class ShardLeaseManager {
+
+    private static final LocalDateTime NEVER_HELD = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private final SchedulerLeaseRepository schedulerLeaseRepository;
+    private final Clock clock;
+    private final String nodeId;
+    private final int shardCount;
+    private final Duration leaseDuration;
+
+    public ShardLeaseManager(SchedulerLeaseRepository schedulerLeaseRepository, Clock clock,
+            @Value("${scheduler.node-id:}") String nodeId,
+            @Value("${scheduler.expiry.shards:8}") int shardCount,
+            @Value("${scheduler.expiry.lease-duration:PT5M}") Duration leaseDuration) {
+        this.schedulerLeaseRepository = schedulerLeaseRepository;
+        this.clock = clock;
+        this.nodeId = nodeId.isBlank() ? UUID.randomUUID().toString() : nodeId;
+        this.shardCount = shardCount;
+        this.leaseDuration = leaseDuration;
+    }
+
+    public String getNodeId() {
+        return this.nodeId;
+    }
+
+    public int getShardCount() {
+        return this.shardCount;
+    }
+
+    // All shards, starting at a node specific offset so concurrently starting nodes tend to pick different shards first.
+    public List<Shard> shards() {
+        int offset = Math.floorMod(nodeId.hashCode(), shardCount);
+        List<Shard> shards = new ArrayList<>(shardCount);
+        for (int i = 0; i < shardCount; i++) {
+            shards.add(new Shard((offset + i) % shardCount, shardCount));
+        }
+        return shards;
+    }
+
+    // Acquires the shard's lease, or renews it when this node already holds it.
+    public boolean tryAcquire(Shard shard) {
+        LocalDateTime now = now();
+        int updated = schedulerLeaseRepository.tryAcquire(shard.index(), nodeId, now, now.plus(leaseDuration));
+        if (updated == 0 && !schedulerLeaseRepository.existsById(shard.index())) {
+            schedulerLeaseRepository.createIfAbsent(shard.index(), NEVER_HELD);
+            updated = schedulerLeaseRepository.tryAcquire(shard.index(), nodeId, now, now.plus(leaseDuration));
+        }
+        return updated == 1;
+    }
+
+    public Optional<SchedulerLease> lease(Shard shard) {
+        return schedulerLeaseRepository.findById(shard.index());
+    }
+
+    // Returns false when the lease was lost in the meantime, the new holder then keeps the old watermark
+    public boolean advanceWatermark(Shard shard, LocalDateTime watermark, LocalDate fullPassOn) {
+        return schedulerLeaseRepository.advanceWatermark(shard.index(), nodeId, watermark, fullPassOn) == 1;
+    }
+
+    public void release(Shard shard) {
+        schedulerLeaseRepository.release(shard.index(), nodeId, now());
+    }
+
+    // Lease expiries are compared across nodes, so they must not depend on a node's time zone
+    private LocalDateTime now() {
+        return LocalDateTime.ofInstant(clock.instant(), ZoneOffset.UTC);
+    }
+}
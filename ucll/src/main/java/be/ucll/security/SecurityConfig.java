@@ -1,9 +1,13 @@
 package be.ucll.security;
 
+import org.springframework.boot.actuate.autoconfigure.security.servlet.EndpointRequest;
+import org.springframework.boot.actuate.autoconfigure.web.server.ManagementPortType;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
 import org.springframework.http.HttpMethod;
 import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authorization.AuthorizationDecision;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
@@ -23,13 +27,17 @@ import java.util.Arrays;
 public class SecurityConfig {
 
   @Bean
-  public SecurityFilterChain securityFilterChain(HttpSecurity http, JwtAuthFilter jwtAuthFilter) throws Exception {
+  public SecurityFilterChain securityFilterChain(HttpSecurity http, JwtAuthFilter jwtAuthFilter, Environment environment) throws Exception {
+    // Actuator only answers on its own management.server.port, which is not exposed to end users; never on the API port
+    boolean separateManagementPort = ManagementPortType.get(environment) == ManagementPortType.DIFFERENT;
     http.cors(cors -> cors.configurationSource(corsConfigurationSource()))
       .csrf(csrf -> csrf.disable())
       .authorizeHttpRequests(auth -> auth
         .requestMatchers("/auth/**").permitAll()
         .requestMatchers(HttpMethod.POST, "/users").permitAll()
         .requestMatchers("/items/**").permitAll()
+        .requestMatchers(EndpointRequest.toAnyEndpoint()).access((authentication, context) ->
+          new AuthorizationDecision(separateManagementPort))
         .anyRequest().authenticated()
       )
       .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
@@ -44,6 +52,8 @@ public class SecurityConfig {
     configuration.setAllowedOriginPatterns(Arrays.asList("http://localhost:*"));
     configuration.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "DELETE", "PATCH", "OPTIONS"));
     configuration.setAllowedHeaders(Arrays.asList("*"));
+    // Cursor of the next page of GET /notifications
+    configuration.setExposedHeaders(Arrays.asList("X-Next-Cursor"));
     configuration.setAllowCredentials(true);
     
     UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
@@ -0,0 +1,59 @@
+package be.ucll.service;
+
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.stereotype.Component;
+
+import be.ucll.repository.UserDeviceTokenRepository;
+import jakarta.transaction.Transactional;
+
+// Removes device tokens FCM no longer accepts, based on the results of a push batch.
+// Tokens reported UNREGISTERED are deleted right away; tokens with token-related errors only once
+// they failed maxFailures times in a row. Transient errors leave the tokens alone.
+@Component
+@ConditionalOnExpression("'${app.role:all}' != 'web'")
+public class DeviceTokenPruner {
+
+    private static final Logger logger = LoggerFactory.getLogger(DeviceTokenPruner.class);
+
+    private final UserDeviceTokenRepository userDeviceTokenRepository;
+    private final int maxFailures;
+
+    public DeviceTokenPruner(UserDeviceTokenRepository userDeviceTokenRepository,
+            @Value("${push.token-pruning.max-failures:3}") int maxFailures) {
+        this.userDeviceTokenRepository = userDeviceTokenRepository;
+        this.maxFailures = maxFailures;
+    }
+
+    // At most four statements per batch, whatever its size
+    @Transactional
+    public void prune(List<PushResult> results) {
+        List<String> dead = tokens(results.stream().filter(PushResult::isDeadToken).toList());
+        List<String> failing = tokens(results.stream().filter(PushResult::isTokenError).toList());
+        List<String> delivered = tokens(results.stream().filter(PushResult::isDelivered).toList());
+
+        int deleted = 0;
+        if (!dead.isEmpty()) {
+            deleted += userDeviceTokenRepository.deleteByTokenIn(dead);
+        }
+        if (!failing.isEmpty()) {
+            userDeviceTokenRepository.incrementFailureCount(failing);
+            deleted += userDeviceTokenRepository.deleteFailing(failing, maxFailures);
+        }
+        if (!delivered.isEmpty()) {
+            userDeviceTokenRepository.resetFailureCount(delivered);
+        }
+
+        if (deleted > 0) {
+            logger.info("Removed {} device tokens rejected by FCM", deleted);
+        }
+    }
+
+    private List<String> tokens(List<PushResult> results) {
+        return results.stream().map(PushResult::token).distinct().toList();
+    }
+}
@@ -0,0 +1,167 @@
+package be.ucll.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+// Local stand-in for the FCM HTTP v1 send endpoint (POST /v1/projects/{project}/messages:send), for load tests
+// without network access. Every request waits latency ± latencyJitter, then fails with UNAVAILABLE at errorRate,
+// with UNREGISTERED at unregisteredRate and with QUOTA_EXCEEDED once more than quotaPerSecond requests
+// arrived in the current second (0 for no quota).
+public class FakeFcmServer {
+
+    private static final Logger logger = LoggerFactory.getLogger(FakeFcmServer.class);
+    private static final String PROJECT = "resqfood-stub";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final int port;
+    private final Duration latency;
+    private final Duration latencyJitter;
+    private final double errorRate;
+    private final double unregisteredRate;
+    private final int quotaPerSecond;
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong delivered = new AtomicLong();
+    private long quotaSecond;
+    private int quotaUsed;
+
+    private HttpServer server;
+    private ExecutorService executor;
+
+    public FakeFcmServer(int port, Duration latency, Duration latencyJitter, double errorRate, double unregisteredRate, int quotaPerSecond) {
+        if (errorRate < 0 || unregisteredRate < 0 || errorRate + unregisteredRate > 1) {
+            throw new IllegalArgumentException("push.stub error rates must be between 0 and 1 and add up to at most 1");
+        }
+        this.port = port;
+        this.latency = latency;
+        this.latencyJitter = latencyJitter;
+        this.errorRate = errorRate;
+        this.unregisteredRate = unregisteredRate;
+        this.quotaPerSecond = quotaPerSecond;
+    }
+
+    public synchronized void start() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        // Every request sleeps for its latency, virtual threads keep that from capping the throughput
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        server.setExecutor(executor);
+        server.createContext("/v1/projects/", this::handle);
+        server.start();
+        logger.info("Fake FCM server listening on {}", getUri());
+    }
+
+    public synchronized void stop() {
+        if (server != null) {
+            server.stop(0);
+            executor.shutdownNow();
+            server = null;
+        }
+    }
+
+    // Base URI of the send endpoint
+    public URI getUri() {
+        return URI.create("http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort()
+                + "/v1/projects/" + PROJECT + "/messages:send");
+    }
+
+    public long getRequestCount() {
+        return requests.get();
+    }
+
+    public long getDeliveredCount() {
+        return delivered.get();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!"POST".equals(exchange.getRequestMethod()) || !exchange.getRequestURI().getPath().endsWith("/messages:send")) {
+                respond(exchange, 404, Map.of("error", Map.of("code", 404, "status", "NOT_FOUND")));
+                return;
+            }
+
+            JsonNode token;
+            try (InputStream body = exchange.getRequestBody()) {
+                token = objectMapper.readTree(body).path("message").path("token");
+            }
+            long id = requests.incrementAndGet();
+            sleep();
+
+            if (token.asText().isBlank()) {
+                respond(exchange, 400, error(400, "INVALID_ARGUMENT", "INVALID_ARGUMENT"));
+            } else if (!withinQuota()) {
+                respond(exchange, 429, error(429, "RESOURCE_EXHAUSTED", "QUOTA_EXCEEDED"));
+            } else {
+                double roll = ThreadLocalRandom.current().nextDouble();
+                if (roll < errorRate) {
+                    respond(exchange, 503, error(503, "UNAVAILABLE", "UNAVAILABLE"));
+                } else if (roll < errorRate + unregisteredRate) {
+                    respond(exchange, 404, error(404, "NOT_FOUND", "UNREGISTERED"));
+                } else {
+                    delivered.incrementAndGet();
+                    respond(exchange, 200, Map.of("name", "projects/" + PROJECT + "/messages/" + id));
+                }
+            }
+        }
+    }
+
+    private synchronized boolean withinQuota() {
+        if (quotaPerSecond <= 0) {
+            return true;
+        }
+        long second = System.nanoTime() / 1_000_000_000L;
+        if (second != quotaSecond) {
+            quotaSecond = second;
+            quotaUsed = 0;
+        }
+        return ++quotaUsed <= quotaPerSecond;
+    }
+
+    private void sleep() {
+        long jitter = latencyJitter.toMillis();
+        long millis = latency.toMillis() + (jitter > 0 ? ThreadLocalRandom.current().nextLong(-jitter, jitter + 1) : 0);
+        if (millis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Same shape as FCM's error responses, the FCM error code sits in the FcmError detail
+    private Map<String, Object> error(int code, String status, String errorCode) {
+        return Map.of("error", Map.of(
+                "code", code,
+                "status", status,
+                "details", new Object[] { Map.of("@type", "type.googleapis.com/google.firebase.fcm.v1.FcmError", "errorCode", errorCode) }));
+    }
+
+    private void respond(HttpExchange exchange, int status, Object body) throws IOException {
+        byte[] bytes = objectMapper.writeValueAsString(body).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=UTF-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
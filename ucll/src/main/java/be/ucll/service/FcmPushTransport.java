@@ -0,0 +1,81 @@
+package be.ucll.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.lang.Nullable;
+
+import com.google.firebase.messaging.AndroidConfig;
+import com.google.firebase.messaging.AndroidNotification;
+import com.google.firebase.messaging.BatchResponse;
+import com.google.firebase.messaging.FirebaseMessaging;
+import com.google.firebase.messaging.FirebaseMessagingException;
+import com.google.firebase.messaging.Message;
+import com.google.firebase.messaging.Notification;
+import com.google.firebase.messaging.SendResponse;
+
+// Sends through Firebase Cloud Messaging with sendEach. Unavailable when Firebase is not initialized.
+public class FcmPushTransport implements PushTransport {
+
+    private static final String UNKNOWN_ERROR = "UNKNOWN";
+
+    private final FirebaseMessaging firebaseMessaging;
+
+    public FcmPushTransport(@Nullable FirebaseMessaging firebaseMessaging) {
+        this.firebaseMessaging = firebaseMessaging;
+    }
+
+    @Override
+    public boolean isAvailable() {
+        return this.firebaseMessaging != null;
+    }
+
+    @Override
+    public List<PushResult> send(List<PushMessage> batch) throws PushTransportException {
+        try {
+            BatchResponse response = firebaseMessaging.sendEach(batch.stream().map(push -> buildMessage(push.token(), push.body())).toList());
+            List<PushResult> results = new ArrayList<>(batch.size());
+            for (int i = 0; i < batch.size(); i++) {
+                SendResponse sent = response.getResponses().get(i);
+                results.add(sent.isSuccessful()
+                        ? PushResult.delivered(batch.get(i).token(), sent.getMessageId())
+                        : PushResult.failed(batch.get(i).token(), errorCode(sent.getException())));
+            }
+            return results;
+        } catch (FirebaseMessagingException e) {
+            throw new PushTransportException(errorCode(e), "FCM sendEach failed", e);
+        }
+    }
+
+    private String errorCode(FirebaseMessagingException e) {
+        if (e == null) {
+            return UNKNOWN_ERROR;
+        }
+        if (e.getMessagingErrorCode() != null) {
+            return e.getMessagingErrorCode().name();
+        }
+        return e.getErrorCode() != null ? e.getErrorCode().name() : UNKNOWN_ERROR;
+    }
+
+    private Message buildMessage(String token, String notificationMessage) {
+        Notification notification = Notification.builder()
+                .setTitle("ResQFood")
+                .setBody(notificationMessage)
+                .build();
+
+        return Message.builder()
+                .setToken(token)
+                .setNotification(notification)
+                .setAndroidConfig(AndroidConfig.builder()
+                        .setPriority(AndroidConfig.Priority.HIGH)
+                        .setNotification(AndroidNotification.builder()
+                                .setIcon("ic_notification")
+                                .setColor("#4caf50")
+                                .setPriority(AndroidNotification.Priority.HIGH)
+                                .build())
+                        .build())
+                .putData("title", "ResQFood")
+                .putData("body", notificationMessage)
+                .build();
+    }
+}
@@ -0,0 +1,78 @@
+package be.ucll.service;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+// Speaks the FCM HTTP v1 send API, one request per message sent concurrently like sendEach does.
+// Used against a FakeFcmServer, the real FCM endpoint also needs OAuth which only FcmPushTransport has.
+public class HttpPushTransport implements PushTransport {
+
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(10);
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpClient httpClient;
+    private final URI sendUri;
+
+    public HttpPushTransport(URI sendUri) {
+        this.sendUri = sendUri;
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(REQUEST_TIMEOUT)
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+    }
+
+    @Override
+    public List<PushResult> send(List<PushMessage> batch) {
+        List<CompletableFuture<PushResult>> sends = batch.stream().map(this::send).toList();
+        return sends.stream().map(CompletableFuture::join).toList();
+    }
+
+    // A message that could not be sent at all fails on its own, as it would with sendEach
+    private CompletableFuture<PushResult> send(PushMessage push) {
+        HttpRequest request;
+        try {
+            request = HttpRequest.newBuilder(sendUri)
+                    .timeout(REQUEST_TIMEOUT)
+                    .header("Content-Type", "application/json; charset=UTF-8")
+                    .POST(HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(Map.of("message", Map.of(
+                            "token", push.token(),
+                            "notification", Map.of("title", "ResQFood", "body", push.body()))))))
+                    .build();
+        } catch (JsonProcessingException e) {
+            return CompletableFuture.completedFuture(PushResult.failed(push.token(), "INVALID_ARGUMENT"));
+        }
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+                .thenApply(response -> toResult(push, response))
+                .exceptionally(e -> PushResult.failed(push.token(), "UNAVAILABLE"));
+    }
+
+    private PushResult toResult(PushMessage push, HttpResponse<String> response) {
+        try {
+            JsonNode body = objectMapper.readTree(response.body());
+            if (response.statusCode() == 200) {
+                return PushResult.delivered(push.token(), body.path("name").asText());
+            }
+            JsonNode error = body.path("error");
+            for (JsonNode detail : error.path("details")) {
+                if (detail.hasNonNull("errorCode")) {
+                    return PushResult.failed(push.token(), detail.get("errorCode").asText());
+                }
+            }
+            return PushResult.failed(push.token(), error.path("status").asText("UNKNOWN"));
+        } catch (JsonProcessingException e) {
+            return PushResult.failed(push.token(), "UNKNOWN");
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package be.ucll.service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import be.ucll.model.Notification;
+import be.ucll.model.User;
+import be.ucll.repository.UserRepository;
+import jakarta.annotation.PreDestroy;
+
+// Merges the Inventory Update confirmations of one user within a window into a single notification
+// and push, e.g. "10 items removed!" instead of ten separate ones. A window opens with the user's
+// first committed change and is flushed by the coalescer's own thread, so web nodes (which run no
+// scheduling) flush too. Windows live in memory and are flushed on shutdown; a crash loses at most
+// the confirmations of the open windows.
+@Component
+public class InventoryUpdateCoalescer {
+
+    private static final Logger logger = LoggerFactory.getLogger(InventoryUpdateCoalescer.class);
+
+    private static final String TITLE = "Inventory Update";
+    private static final Duration FLUSH_INTERVAL = Duration.ofSeconds(1);
+
+    private final NotificationService notificationService;
+    private final UserRepository userRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Clock clock;
+    private final Duration window;
+    private final Map<Long, Window> windows = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService flusher;
+
+    public InventoryUpdateCoalescer(NotificationService notificationService, UserRepository userRepository,
+            PlatformTransactionManager transactionManager, Clock clock,
+            @Value("${notifications.inventory-update.coalesce-window:PT10S}") Duration window) {
+        this.notificationService = notificationService;
+        this.userRepository = userRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.clock = clock;
+        this.window = window;
+
+        long interval = Math.max(1, Math.min(FLUSH_INTERVAL.toMillis(), window.toMillis()));
+        this.flusher = Executors.newSingleThreadScheduledExecutor(Thread.ofVirtual().name("inventory-update-coalescer").factory());
+        this.flusher.scheduleWithFixedDelay(this::flushDue, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    // Only changes that committed are confirmed
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onInventoryUpdated(InventoryUpdatedEvent event) {
+        if (window.isZero()) {
+            flush(List.of(new Window(event.userId(), clock.instant()).add(event)));
+            return;
+        }
+        windows.compute(event.userId(), (userId, open) ->
+                (open != null ? open : new Window(userId, clock.instant().plus(window))).add(event));
+    }
+
+    // Sends the windows that closed, all of them in one transaction as long as that works
+    public void flushDue() {
+        Instant now = clock.instant();
+        List<Window> due = new ArrayList<>();
+        for (Long userId : List.copyOf(windows.keySet())) {
+            Window open = windows.get(userId);
+            if (open != null && !open.closesAt.isAfter(now)) {
+                // A change that slips in before the removal still ends up in this window
+                Window closed = windows.remove(userId);
+                if (closed != null) {
+                    due.add(closed);
+                }
+            }
+        }
+        flush(due);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flusher.shutdownNow();
+        List<Window> open = new ArrayList<>();
+        for (Long userId : List.copyOf(windows.keySet())) {
+            Window closed = windows.remove(userId);
+            if (closed != null) {
+                open.add(closed);
+            }
+        }
+        flush(open);
+    }
+
+    // A window that cannot be sent must not take the other users' confirmations down with it:
+    // after a failed batch every window is retried in its own transaction
+    private void flush(List<Window> closed) {
+        if (closed.isEmpty()) {
+            return;
+        }
+
+        try {
+            send(closed);
+        } catch (RuntimeException e) {
+            if (closed.size() == 1) {
+                logger.error("Failed to send the coalesced inventory updates of user {}", closed.get(0).userId(), e);
+                return;
+            }
+            logger.warn("Failed to send {} coalesced inventory updates at once, sending them one by one", closed.size(), e);
+            closed.forEach(window -> flush(List.of(window)));
+        }
+    }
+
+    private void send(List<Window> closed) {
+        transactionTemplate.executeWithoutResult(status -> {
+            Map<Long, User> users = userRepository.findWithDeviceTokensByIdIn(closed.stream().map(Window::userId).toList())
+                    .stream()
+                    .collect(Collectors.toMap(User::getId, Function.identity()));
+            // Users deleted in the meantime get nothing
+            List<Notification> notifications = closed.stream()
+                    .filter(window -> users.containsKey(window.userId()))
+                    .map(window -> window.toNotification(users.get(window.userId())))
+                    .toList();
+            notificationService.createAndSendNotifications(notifications, PushPriority.LOW);
+        });
+    }
+
+    // Only touched inside ConcurrentHashMap#compute, or after it was removed from the map
+    private static class Window {
+
+        private final Long userId;
+        private final Instant closesAt;
+        private final Map<Long, String> saved = new LinkedHashMap<>();
+        private int removed;
+
+        private Window(Long userId, Instant closesAt) {
+            this.userId = userId;
+            this.closesAt = closesAt;
+        }
+
+        private Long userId() {
+            return this.userId;
+        }
+
+        private Window add(InventoryUpdatedEvent event) {
+            for (int i = 0; i < event.savedUserItemIds().size(); i++) {
+                saved.put(event.savedUserItemIds().get(i), event.savedItemNames().get(i));
+            }
+            removed += event.removed();
+            return this;
+        }
+
+        // Saving the same item twice counts once. A large import keeps the ids that fit, see Notification#setRelatedItemIds
+        private Notification toNotification(User user) {
+            Long relatedItemId = saved.size() == 1 && removed == 0 ? saved.keySet().iterator().next() : null;
+            Notification notification = new Notification(user, TITLE, message(), relatedItemId);
+            if (saved.size() > 1) {
+                notification.setRelatedItemIds(List.copyOf(saved.keySet()));
+            }
+            return notification;
+        }
+
+        private String message() {
+            if (removed == 0) {
+                return saved.size() == 1
+                        ? "Item '" + saved.values().iterator().next() + "' successfully saved!"
+                        : saved.size() + " items successfully saved!";
+            }
+            if (saved.isEmpty()) {
+                return removed == 1 ? "Instance of item successfully removed!" : removed + " items removed!";
+            }
+            return items(saved.size()) + " saved and " + items(removed) + " removed!";
+        }
+
+        private static String items(int count) {
+            return count + (count == 1 ? " item" : " items");
+        }
+    }
+}
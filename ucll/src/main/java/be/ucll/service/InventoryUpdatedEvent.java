@@ -0,0 +1,16 @@
+package be.ucll.service;
+
+import java.util.List;
+
+// A user's own change to their inventory, confirmed to them by the InventoryUpdateCoalescer.
+// savedItemNames lines up with savedUserItemIds.
+public record InventoryUpdatedEvent(Long userId, List<Long> savedUserItemIds, List<String> savedItemNames, int removed) {
+
+    public static InventoryUpdatedEvent saved(Long userId, List<Long> userItemIds, List<String> itemNames) {
+        return new InventoryUpdatedEvent(userId, userItemIds, itemNames, 0);
+    }
+
+    public static InventoryUpdatedEvent removed(Long userId) {
+        return new InventoryUpdatedEvent(userId, List.of(), List.of(), 1);
+    }
+}
@@ -1,36 +1,191 @@
 package be.ucll.service;
 
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 
+import be.ucll.dto.DeferredDeliveryDTO;
+import be.ucll.dto.NotificationCursor;
+import be.ucll.dto.NotificationDTO;
 import be.ucll.exception.DomainException;
 import be.ucll.model.Notification;
 import be.ucll.model.User;
+import be.ucll.model.UserDeviceToken;
+import be.ucll.repository.NotificationBatchRepository;
+import be.ucll.repository.NotificationOutboxRepository;
 import be.ucll.repository.NotificationRepository;
+import be.ucll.repository.UserRepository;
+import be.ucll.scheduler.NotificationDeferredEvent;
 import jakarta.transaction.Transactional;
 
 @Service
 public class NotificationService {
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    public static final int MAX_PAGE_SIZE = 100;
+
     private final NotificationRepository notificationRepository;
-    private final PushNotificationService pushNotificationService;
+    private final NotificationBatchRepository notificationBatchRepository;
+    private final NotificationOutboxRepository notificationOutboxRepository;
+    private final UserRepository userRepository;
+    private final PushMetrics pushMetrics;
+    private final PeakHours peakHours;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Clock clock;
 
     public NotificationService(NotificationRepository notificationRepository,
-            PushNotificationService pushNotificationService) {
+            NotificationBatchRepository notificationBatchRepository,
+            NotificationOutboxRepository notificationOutboxRepository, UserRepository userRepository, PushMetrics pushMetrics,
+            PeakHours peakHours, ApplicationEventPublisher eventPublisher, Clock clock) {
         this.notificationRepository = notificationRepository;
-        this.pushNotificationService = pushNotificationService;
+        this.notificationBatchRepository = notificationBatchRepository;
+        this.notificationOutboxRepository = notificationOutboxRepository;
+        this.userRepository = userRepository;
+        this.pushMetrics = pushMetrics;
+        this.peakHours = peakHours;
+        this.eventPublisher = eventPublisher;
+        this.clock = clock;
     }
 
     @Transactional
-    public void createAndSendNotification(User user, String title, String message, Long relatedItemId) {
+    public void createAndSendNotification(User user, String title, String message, Long relatedItemId, PushPriority priority) {
         Notification notification = new Notification(user, title, message, relatedItemId);
+        holdDuringPeakHours(List.of(notification), priority);
         notificationRepository.save(notification);
 
-        user.getDeviceTokens().forEach(token -> pushNotificationService.sendToDevice(token.getToken(), message));
+        notificationOutboxRepository.insertAll(pushes(List.of(notification), priority));
+    }
+
+    // Bulk variant for the scheduler: all rows go to the database in a single JDBC batch.
+    // Notifications rejected as duplicates by their dedup key are not pushed again.
+    // Pushes are written to the outbox in the same transaction, NotificationOutboxRelay sends them after the commit.
+    // Notifications with a deliverAt are held instead and sent by DeferredNotificationDispatcher once due,
+    // as are LOW ones created during peak hours.
+    @Transactional
+    public void createAndSendNotifications(List<Notification> notifications, PushPriority priority) {
+        holdDuringPeakHours(notifications, priority);
+        List<Notification> inserted = notificationBatchRepository.insertAll(notifications);
+
+        notificationOutboxRepository.insertAll(pushes(inserted, priority));
     }
 
-    public List<Notification> getUserNotifications(String username) {
-        return notificationRepository.findByUser_UsernameOrderByTimestampDesc(username);
+    // Held ones have no id yet, the dispatcher's next refill picks them up well before the peak ends
+    private void holdDuringPeakHours(List<Notification> notifications, PushPriority priority) {
+        if (priority != PushPriority.LOW) {
+            return;
+        }
+        Instant endOfPeak = peakHours.endOfPeak(clock.instant());
+        if (endOfPeak == null) {
+            return;
+        }
+
+        LocalDateTime deliverAt = LocalDateTime.ofInstant(endOfPeak.truncatedTo(ChronoUnit.SECONDS), ZoneOffset.UTC);
+        for (Notification notification : notifications) {
+            if (notification.getDeliverAt() == null) {
+                notification.setDeliverAt(deliverAt);
+                notification.setPushPriority(PushPriority.LOW);
+            }
+        }
+    }
+
+    private List<PushMessage> pushes(List<Notification> notifications, PushPriority priority) {
+        List<PushMessage> pushes = new ArrayList<>();
+        for (Notification notification : notifications) {
+            if (notification.getDeliverAt() != null) {
+                continue;
+            }
+            List<UserDeviceToken> tokens = notification.getUser().getDeviceTokens();
+            pushMetrics.recordTokensPerUser(tokens.size());
+            tokens.forEach(token -> pushes.add(new PushMessage(null, token.getToken(), notification.getMessage(), priority)));
+        }
+        return pushes;
+    }
+
+    // Sends the deferred notifications whose deliver_at is still the one they were queued with;
+    // anything snoozed again or already sent by another node is skipped. Returns how many were sent.
+    // Each one is replaced by a new notification, so it shows up as new and unread even if the user
+    // marked everything as read in the meantime (see User#lastReadNotificationId). Snoozed ones are pushed
+    // with high priority since the user is waiting for them, ones held during peak hours keep their LOW one.
+    @Transactional
+    public int deliverDeferred(List<DeferredDeliveryDTO> due) {
+        Map<Long, Notification> deferred = notificationRepository.findWithDeviceTokensByIdIn(
+                due.stream().map(DeferredDeliveryDTO::notificationId).toList()).stream()
+                .collect(Collectors.toMap(Notification::getId, Function.identity()));
+
+        List<Notification> delivered = new ArrayList<>();
+        List<Notification> held = new ArrayList<>();
+        for (DeferredDeliveryDTO delivery : due) {
+            Notification notification = deferred.get(delivery.notificationId());
+            if (notification != null && notificationRepository.deleteDeferred(delivery.notificationId(), delivery.deliverAt()) == 1) {
+                Notification redelivered = redelivery(notification);
+                delivered.add(redelivered);
+                if (notification.getPushPriority() == PushPriority.LOW) {
+                    held.add(redelivered);
+                }
+            }
+        }
+        if (delivered.isEmpty()) {
+            return 0;
+        }
+
+        Map<Boolean, List<Notification>> inserted = notificationBatchRepository.insertAll(delivered).stream()
+                .collect(Collectors.partitioningBy(held::contains));
+        List<PushMessage> pushes = new ArrayList<>(pushes(inserted.get(false), PushPriority.HIGH));
+        pushes.addAll(pushes(inserted.get(true), PushPriority.LOW));
+        notificationOutboxRepository.insertAll(pushes);
+        return delivered.size();
+    }
+
+    private Notification redelivery(Notification deferred) {
+        Notification notification = new Notification(deferred.getUser(), deferred.getTitle(), deferred.getMessage(), deferred.getRelatedItemId());
+        notification.setRelatedItemIds(deferred.getRelatedItemIds());
+        notification.setDedupKey(deferred.getDedupKey());
+        return notification;
+    }
+
+    // A page of the user's feed, newest first: the first page without a cursor, then the page after it
+    public List<NotificationDTO> getUserNotifications(String username, NotificationCursor after, int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+
+        Long userId = userRepository.findIdByUsername(username)
+                .orElseThrow(() -> new DomainException("User not found!"));
+        return after == null
+                ? notificationRepository.findFeed(userId, Limit.of(limit))
+                : notificationRepository.findFeedBefore(userId, after.timestamp(), after.id(), Limit.of(limit));
+    }
+
+    // Hides the notification until the given time, then it comes back unread and is pushed again
+    @Transactional
+    public void snooze(Long notificationId, String username, Instant until) {
+        Notification notification = notificationRepository.findById(notificationId)
+                .orElseThrow(() -> new DomainException("Notification not found!"));
+
+        if (!notification.getUser().getUsername().equals(username)) {
+            throw new DomainException("Unauthorized");
+        }
+        if (!until.isAfter(clock.instant())) {
+            throw new DomainException("Snooze time must be in the future");
+        }
+
+        // Stored in UTC like the other scheduler timestamps, to the second so it compares equal once read back
+        LocalDateTime deliverAt = LocalDateTime.ofInstant(until.truncatedTo(ChronoUnit.SECONDS), ZoneOffset.UTC);
+        notification.setDeliverAt(deliverAt);
+        notification.setPushPriority(null);
+        notification.setIsRead(false);
+        notificationRepository.save(notification);
+        eventPublisher.publishEvent(new NotificationDeferredEvent(notification.getId(), deliverAt));
     }
 
     public void markAsRead(Long notificationId, String username) {
@@ -41,6 +196,10 @@ public class NotificationService {
             throw new DomainException("Unauthorized");
         }
 
+        // Below the read mark it already counts as read
+        if (notification.isBelowReadMark()) {
+            return;
+        }
         notification.setIsRead(true);
         notificationRepository.save(notification);
     }
@@ -59,10 +218,10 @@ public class NotificationService {
 
     @Transactional
     public void markAllAsRead(String username) {
-        notificationRepository.markAllAsRead(username);
+        userRepository.markAllNotificationsRead(username);
     }
 
     public long getUnreadCount(String username) {
-        return notificationRepository.countByUser_UsernameAndIsReadFalse(username);
+        return notificationRepository.countUnread(username);
     }
 }
@@ -0,0 +1,56 @@
+package be.ucll.service;
+
+import java.time.Instant;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+// Daily hours in which LOW pushes are held back and delivered once the peak is over, e.g. "17:00-22:00"
+// in the configured zone. A window may wrap past midnight ("22:00-02:00"); an empty one never holds.
+@Component
+public class PeakHours {
+
+    private final LocalTime start;
+    private final LocalTime end;
+    private final ZoneId zone;
+
+    public PeakHours(@Value("${notifications.low-priority.peak-hours:}") String hours,
+            @Value("${notifications.low-priority.zone:UTC}") ZoneId zone) {
+        this.zone = zone;
+        if (hours.isBlank()) {
+            this.start = null;
+            this.end = null;
+            return;
+        }
+
+        String[] bounds = hours.split("-");
+        if (bounds.length != 2) {
+            throw new IllegalArgumentException("notifications.low-priority.peak-hours must look like 17:00-22:00");
+        }
+        this.start = LocalTime.parse(bounds[0].trim());
+        this.end = LocalTime.parse(bounds[1].trim());
+        if (start.equals(end)) {
+            throw new IllegalArgumentException("notifications.low-priority.peak-hours must not start and end at the same time");
+        }
+    }
+
+    // End of the peak the instant falls in, or null when it is off-peak
+    public Instant endOfPeak(Instant instant) {
+        if (start == null) {
+            return null;
+        }
+
+        ZonedDateTime at = instant.atZone(zone);
+        LocalTime time = at.toLocalTime();
+        if (start.isBefore(end)) {
+            return !time.isBefore(start) && time.isBefore(end) ? at.with(end).toInstant() : null;
+        }
+        if (!time.isBefore(start)) {
+            return at.plusDays(1).with(end).toInstant();
+        }
+        return time.isBefore(end) ? at.with(end).toInstant() : null;
+    }
+}
@@ -0,0 +1,9 @@
+package be.ucll.service;
+
+// What PushDispatcher does with a push when its queue is full
+public enum PushBackpressure {
+    // Wait up to push.dispatch.block-timeout for room, then drop the push
+    BLOCK,
+    // Drop the push right away
+    DROP
+}
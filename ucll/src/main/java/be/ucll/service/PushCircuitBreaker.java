@@ -0,0 +1,106 @@
+package be.ucll.service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+// Stops calling FCM after failureThreshold failed calls in a row. After openDuration one trial
+// call is let through: its success closes the breaker again, its failure re-opens it.
+// The state is published as the push.circuit.state gauge (0 closed, 1 half open, 2 open).
+@Component
+@ConditionalOnExpression("'${app.role:all}' != 'web'")
+public class PushCircuitBreaker {
+
+    public enum State {
+        CLOSED, HALF_OPEN, OPEN
+    }
+
+    private static final Logger logger = LoggerFactory.getLogger(PushCircuitBreaker.class);
+
+    private final Clock clock;
+    private final int failureThreshold;
+    private final Duration openDuration;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private Instant openedAt;
+    private boolean trialInFlight;
+
+    public PushCircuitBreaker(Clock clock, MeterRegistry meterRegistry,
+            @Value("${push.circuit-breaker.failure-threshold:5}") int failureThreshold,
+            @Value("${push.circuit-breaker.open-duration:PT30S}") Duration openDuration) {
+        if (failureThreshold < 1) {
+            throw new IllegalArgumentException("push.circuit-breaker.failure-threshold must be at least 1");
+        }
+        this.clock = clock;
+        this.failureThreshold = failureThreshold;
+        this.openDuration = openDuration;
+
+        Gauge.builder("push.circuit.state", this, breaker -> breaker.getState().ordinal())
+                .description("FCM circuit breaker state: 0 closed, 1 half open, 2 open")
+                .register(meterRegistry);
+    }
+
+    // Whether a call may go out now; in the half open state only one trial call at a time
+    public synchronized boolean allowRequest() {
+        if (state == State.OPEN && !clock.instant().isBefore(openedAt.plus(openDuration))) {
+            state = State.HALF_OPEN;
+            trialInFlight = false;
+        }
+        if (state == State.HALF_OPEN) {
+            if (trialInFlight) {
+                return false;
+            }
+            trialInFlight = true;
+            return true;
+        }
+        return state == State.CLOSED;
+    }
+
+    // Whether callers should hold their work back instead of asking; false once a trial call is due
+    public synchronized boolean isOpen() {
+        return state == State.OPEN && clock.instant().isBefore(openedAt.plus(openDuration));
+    }
+
+    public synchronized void recordSuccess() {
+        if (state != State.CLOSED) {
+            logger.info("FCM circuit breaker closed");
+        }
+        state = State.CLOSED;
+        consecutiveFailures = 0;
+        trialInFlight = false;
+    }
+
+    public synchronized void recordFailure() {
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+            if (state != State.OPEN) {
+                logger.warn("FCM circuit breaker opened after {} failed calls", consecutiveFailures);
+            }
+            state = State.OPEN;
+            openedAt = clock.instant();
+            trialInFlight = false;
+        }
+    }
+
+    // A failed retry of messages that already failed once. It does not count towards opening the breaker,
+    // otherwise one message FCM always rejects would open it on its own, but a failed trial call still re-opens it.
+    public synchronized void recordRetryFailure() {
+        if (state == State.HALF_OPEN) {
+            recordFailure();
+        }
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+}
@@ -0,0 +1,185 @@
+package be.ucll.service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.stereotype.Component;
+
+import be.ucll.repository.NotificationOutboxRepository;
+import jakarta.annotation.PreDestroy;
+
+// Keeps FCM I/O off the relay and out of any transaction: pushes go into one bounded queue per
+// PushLane that virtual threads drain through PushNotificationService, up to one FCM batch per call.
+// Every lane has its own workers and rate limit, together they make up the instance's budget towards FCM;
+// the workers of a lower lane take pushes of the higher lanes first, so expiry alerts never wait behind
+// confirmations.
+// Relayed outbox rows are marked delivered once their batch has been sent, and tokens FCM
+// rejected are handed to the DeviceTokenPruner.
+@Component
+@ConditionalOnExpression("'${app.role:all}' != 'web'")
+public class PushDispatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(PushDispatcher.class);
+
+    private final PushNotificationService pushNotificationService;
+    private final NotificationOutboxRepository notificationOutboxRepository;
+    private final DeviceTokenPruner deviceTokenPruner;
+    private final PushMetrics pushMetrics;
+    private final Clock clock;
+    private final Map<PushPriority, PushLane> lanes = new EnumMap<>(PushPriority.class);
+    private final Duration blockTimeout;
+    private final Duration drainTimeout;
+    private final List<Thread> workers = new ArrayList<>();
+
+    private volatile boolean accepting = true;
+
+    public PushDispatcher(PushNotificationService pushNotificationService,
+            NotificationOutboxRepository notificationOutboxRepository, DeviceTokenPruner deviceTokenPruner,
+            PushMetrics pushMetrics, Clock clock, List<PushLane> pushLanes,
+            @Value("${push.dispatch.block-timeout:PT5S}") Duration blockTimeout,
+            @Value("${push.dispatch.drain-timeout:PT30S}") Duration drainTimeout) {
+        pushLanes.forEach(lane -> lanes.put(lane.getPriority(), lane));
+        if (lanes.size() != PushPriority.values().length || pushLanes.size() != lanes.size()) {
+            throw new IllegalArgumentException("Push dispatch needs exactly one lane per priority");
+        }
+        this.pushNotificationService = pushNotificationService;
+        this.notificationOutboxRepository = notificationOutboxRepository;
+        this.deviceTokenPruner = deviceTokenPruner;
+        this.pushMetrics = pushMetrics;
+        this.clock = clock;
+        this.blockTimeout = blockTimeout;
+        this.drainTimeout = drainTimeout;
+
+        for (PushLane lane : lanes.values()) {
+            pushMetrics.registerQueueDepth(lane);
+            // This lane and every lane above it, highest first
+            List<PushLane> served = lanes.values().stream()
+                    .filter(other -> other.getPriority().compareTo(lane.getPriority()) <= 0)
+                    .toList();
+            for (int i = 0; i < lane.getWorkers(); i++) {
+                workers.add(Thread.ofVirtual()
+                        .name("push-dispatch-" + lane.getPriority().name().toLowerCase() + "-" + i)
+                        .start(() -> work(served)));
+            }
+        }
+    }
+
+    // Returns whether the push was queued. A dropped outbox push stays claimed (its attempt is given back) and is relayed
+    // again once its claim runs out. Drops are counted in push.dispatch.dropped, not logged one by one.
+    public boolean submit(PushMessage push) {
+        if (!accepting) {
+            pushMetrics.recordDropped(push.priority(), "shutdown");
+            logger.debug("Dropping push to token {}: dispatcher is shutting down", push.maskedToken());
+            return false;
+        }
+
+        PushLane lane = lanes.get(push.priority());
+        boolean queued = lane.offer(push);
+        if (!queued && lane.getWhenFull() == PushBackpressure.BLOCK) {
+            try {
+                queued = lane.offer(push, blockTimeout.toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (!queued) {
+            pushMetrics.recordDropped(push.priority(), "queue_full");
+            logger.debug("Dropping push to token {}: {} priority dispatch queue is full", push.maskedToken(), push.priority());
+        }
+        return queued;
+    }
+
+    public int pending() {
+        return lanes.values().stream().mapToInt(PushLane::size).sum();
+    }
+
+    public int remainingCapacity(PushPriority priority) {
+        return accepting ? lanes.get(priority).remainingCapacity() : 0;
+    }
+
+    // Stops taking new pushes and gives the workers drain-timeout to send what is already queued
+    @PreDestroy
+    public void shutdown() {
+        accepting = false;
+        long deadline = System.nanoTime() + drainTimeout.toNanos();
+        for (Thread worker : workers) {
+            try {
+                if (!worker.join(Duration.ofNanos(Math.max(deadline - System.nanoTime(), 1)))) {
+                    worker.interrupt();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        if (pending() > 0) {
+            logger.warn("Push dispatcher stopped with {} pushes still queued", pending());
+        }
+    }
+
+    private void work(List<PushLane> served) {
+        PushLane own = served.get(served.size() - 1);
+        while (accepting || served.stream().anyMatch(lane -> lane.size() > 0)) {
+            PushLane lane = null;
+            PushMessage first = null;
+            try {
+                // Only the worker's own lane is waited on, higher lanes are just checked
+                for (PushLane candidate : served) {
+                    first = candidate == own ? candidate.poll(100) : candidate.poll();
+                    if (first != null) {
+                        lane = candidate;
+                        break;
+                    }
+                }
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (first == null) {
+                continue;
+            }
+
+            // Every push takes one permit, the only one it takes. Whatever else is waiting in the same lane only goes
+            // along in the same FCM call as far as permits are available right now, so a backlog (e.g. many users
+            // sharing a delivery slot) goes out as a steady stream of small batches instead of one burst
+            PushRateLimiter rateLimiter = lane.getRateLimiter();
+            try {
+                rateLimiter.acquire();
+            } catch (InterruptedException e) {
+                // Interrupted once the drain timeout ran out; a relayed push stays claimed and is relayed again
+                return;
+            }
+            List<PushMessage> batch = new ArrayList<>();
+            batch.add(first);
+            int permits = rateLimiter.tryAcquire(Math.min(lane.size(), PushNotificationService.MAX_BATCH_SIZE - 1));
+            rateLimiter.release(permits - lane.drainTo(batch, permits));
+            send(batch);
+        }
+    }
+
+    private void send(List<PushMessage> batch) {
+        try {
+            List<PushResult> results = pushNotificationService.sendAll(batch);
+            // Pushes that still failed with a retryable error stay claimed and are relayed again later
+            List<Long> done = new ArrayList<>();
+            for (int i = 0; i < batch.size(); i++) {
+                if (batch.get(i).outboxId() != null && !results.get(i).isRetryable()) {
+                    done.add(batch.get(i).outboxId());
+                }
+            }
+            notificationOutboxRepository.markDelivered(done, LocalDateTime.ofInstant(clock.instant(), ZoneOffset.UTC));
+            deviceTokenPruner.prune(results);
+        } catch (RuntimeException e) {
+            logger.error("Push dispatch of {} pushes failed", batch.size(), e);
+        }
+    }
+}
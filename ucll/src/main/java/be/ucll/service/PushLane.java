@@ -0,0 +1,71 @@
+package be.ucll.service;
+
+import java.util.Collection;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+// One priority lane of the PushDispatcher: its own bounded queue, share of the workers and rate limit.
+public class PushLane {
+
+    private final PushPriority priority;
+    private final BlockingQueue<PushMessage> queue;
+    private final int workers;
+    private final PushBackpressure whenFull;
+    private final PushRateLimiter rateLimiter;
+
+    public PushLane(PushPriority priority, int queueCapacity, int workers, PushBackpressure whenFull, PushRateLimiter rateLimiter) {
+        if (queueCapacity < 1 || workers < 1) {
+            throw new IllegalArgumentException("Push lane " + priority + " needs a queue capacity and worker count of at least 1");
+        }
+        this.priority = priority;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.workers = workers;
+        this.whenFull = whenFull;
+        this.rateLimiter = rateLimiter;
+    }
+
+    public PushPriority getPriority() {
+        return this.priority;
+    }
+
+    public int getWorkers() {
+        return this.workers;
+    }
+
+    public PushBackpressure getWhenFull() {
+        return this.whenFull;
+    }
+
+    public PushRateLimiter getRateLimiter() {
+        return this.rateLimiter;
+    }
+
+    boolean offer(PushMessage push) {
+        return queue.offer(push);
+    }
+
+    boolean offer(PushMessage push, long timeoutMillis) throws InterruptedException {
+        return queue.offer(push, timeoutMillis, TimeUnit.MILLISECONDS);
+    }
+
+    PushMessage poll() {
+        return queue.poll();
+    }
+
+    PushMessage poll(long timeoutMillis) throws InterruptedException {
+        return queue.poll(timeoutMillis, TimeUnit.MILLISECONDS);
+    }
+
+    int drainTo(Collection<PushMessage> batch, int max) {
+        return queue.drainTo(batch, max);
+    }
+
+    int size() {
+        return queue.size();
+    }
+
+    int remainingCapacity() {
+        return queue.remainingCapacity();
+    }
+}
@@ -0,0 +1,18 @@
+package be.ucll.service;
+
+// One push to one device token. outboxId is set for pushes relayed from notification_outbox.
+public record PushMessage(Long outboxId, String token, String body, PushPriority priority) {
+
+    public PushMessage(Long outboxId, String token, String body) {
+        this(outboxId, token, body, PushPriority.HIGH);
+    }
+
+    public PushMessage(String token, String body) {
+        this(null, token, body);
+    }
+
+    // Tokens let anyone push to the device, logs only get their start
+    public String maskedToken() {
+        return token == null || token.length() <= 8 ? "****" : token.substring(0, 8) + "****";
+    }
+}
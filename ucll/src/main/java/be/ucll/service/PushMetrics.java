@@ -0,0 +1,124 @@
+package be.ucll.service;
+
+import java.time.Duration;
+import java.util.List;
+
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.step.StepDouble;
+
+// Push delivery telemetry, read through /actuator/metrics/push.*. Replaces the per-message logging:
+//   push.send.latency       one PushTransport call (up to 500 messages), as a histogram
+//   push.messages.delivered messages FCM accepted; push.throughput is the same per second over the last 10s
+//   push.messages.failed    failed messages per attempt, tagged with the FCM error code
+//   push.dispatch.queue.depth / push.dispatch.dropped   per priority lane
+//   push.outbox.exhausted   outbox pushes given up on after push.outbox.max-attempts
+//   push.tokens.per.user    devices each notification is pushed to
+@Component
+public class PushMetrics {
+
+    private static final Duration THROUGHPUT_STEP = Duration.ofSeconds(10);
+
+    private final MeterRegistry meterRegistry;
+    private final Timer sendLatency;
+    private final Timer failedSendLatency;
+    private final Counter delivered;
+    private final StepDouble recentlyDelivered;
+    private final DistributionSummary tokensPerUser;
+
+    public PushMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        this.sendLatency = sendLatency("success");
+        this.failedSendLatency = sendLatency("error");
+        this.delivered = Counter.builder("push.messages.delivered")
+                .description("Push messages FCM accepted")
+                .register(meterRegistry);
+        this.recentlyDelivered = new StepDouble(meterRegistry.config().clock(), THROUGHPUT_STEP.toMillis());
+        Gauge.builder("push.throughput", recentlyDelivered, step -> step.poll() / THROUGHPUT_STEP.toSeconds())
+                .description("Push messages delivered per second, averaged over the last 10 seconds")
+                .baseUnit("messages/s")
+                .register(meterRegistry);
+        this.tokensPerUser = DistributionSummary.builder("push.tokens.per.user")
+                .description("Device tokens a notification is pushed to")
+                .serviceLevelObjectives(1, 2, 3, 5, 10)
+                .register(meterRegistry);
+    }
+
+    private Timer sendLatency(String outcome) {
+        return Timer.builder("push.send.latency")
+                .description("Duration of one push transport call")
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    public Timer.Sample startSend() {
+        return Timer.start(meterRegistry);
+    }
+
+    public void recordSent(Timer.Sample sample, List<PushResult> results) {
+        sample.stop(sendLatency);
+        recordResults(results);
+    }
+
+    // The whole call failed, every message of it with errorCode
+    public void recordSendFailed(Timer.Sample sample, String errorCode, int messages) {
+        sample.stop(failedSendLatency);
+        failed(errorCode).increment(messages);
+    }
+
+    // Also used for messages that never reached the transport, e.g. CIRCUIT_OPEN
+    public void recordResults(List<PushResult> results) {
+        long deliveredCount = 0;
+        for (PushResult result : results) {
+            if (result.isDelivered()) {
+                deliveredCount++;
+            } else {
+                failed(result.errorCode()).increment();
+            }
+        }
+        delivered.increment(deliveredCount);
+        recentlyDelivered.getCurrent().add(deliveredCount);
+    }
+
+    public void recordTokensPerUser(int tokens) {
+        tokensPerUser.record(tokens);
+    }
+
+    public void recordDropped(PushPriority priority, String reason) {
+        Counter.builder("push.dispatch.dropped")
+                .description("Pushes the dispatcher did not queue")
+                .tag("priority", priority.name())
+                .tag("reason", reason)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    public void recordOutboxExhausted(PushPriority priority, int pushes) {
+        Counter.builder("push.outbox.exhausted")
+                .description("Outbox pushes given up on after the maximum number of attempts")
+                .tag("priority", priority.name())
+                .register(meterRegistry)
+                .increment(pushes);
+    }
+
+    public void registerQueueDepth(PushLane lane) {
+        Gauge.builder("push.dispatch.queue.depth", lane, PushLane::size)
+                .description("Pushes waiting in the dispatch queue")
+                .tag("priority", lane.getPriority().name())
+                .register(meterRegistry);
+    }
+
+    // Error codes come from a fixed FCM set, the registry hands back the same counter per code
+    private Counter failed(String errorCode) {
+        return Counter.builder("push.messages.failed")
+                .description("Push messages that failed, per attempt")
+                .tag("error", errorCode != null ? errorCode : "UNKNOWN")
+                .register(meterRegistry);
+    }
+}
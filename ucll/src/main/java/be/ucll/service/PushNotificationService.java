@@ -1,57 +1,130 @@
 package be.ucll.service;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.lang.Nullable;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
 import org.springframework.stereotype.Service;
 
-import com.google.firebase.messaging.AndroidConfig;
-import com.google.firebase.messaging.AndroidNotification;
-import com.google.firebase.messaging.FirebaseMessaging;
-import com.google.firebase.messaging.Message;
-import com.google.firebase.messaging.Notification;
+import io.micrometer.core.instrument.Timer;
 
 @Service
+@ConditionalOnExpression("'${app.role:all}' != 'web'")
 public class PushNotificationService {
 
   private static final Logger logger = LoggerFactory.getLogger(PushNotificationService.class);
-  private final FirebaseMessaging firebaseMessaging;
 
-  public PushNotificationService(@Nullable FirebaseMessaging firebaseMessaging) {
-    this.firebaseMessaging = firebaseMessaging;
+  // Most messages FCM accepts in one sendEach call, the other transports use the same batches
+  public static final int MAX_BATCH_SIZE = 500;
+
+  private static final String NOT_CONFIGURED = "NOT_CONFIGURED";
+
+  private final PushTransport pushTransport;
+  private final PushCircuitBreaker pushCircuitBreaker;
+  private final PushMetrics pushMetrics;
+  private final int maxAttempts;
+  private final Duration initialBackoff;
+  private final Duration maxBackoff;
+
+  public PushNotificationService(PushTransport pushTransport, PushCircuitBreaker pushCircuitBreaker, PushMetrics pushMetrics,
+      @Value("${push.retry.max-attempts:3}") int maxAttempts,
+      @Value("${push.retry.initial-backoff:PT0.2S}") Duration initialBackoff,
+      @Value("${push.retry.max-backoff:PT5S}") Duration maxBackoff) {
+    this.pushTransport = pushTransport;
+    this.pushCircuitBreaker = pushCircuitBreaker;
+    this.pushMetrics = pushMetrics;
+    this.maxAttempts = maxAttempts;
+    this.initialBackoff = initialBackoff;
+    this.maxBackoff = maxBackoff;
+  }
+
+  // The one way pushes are sent, fed by the PushDispatcher. Sends through the PushTransport, MAX_BATCH_SIZE
+  // messages per call. Rate limiting is up to the dispatcher, so retries of a message do not take another permit.
+  // Returns one result per message, in the order of the messages. Outcomes are counted in PushMetrics.
+  public List<PushResult> sendAll(List<PushMessage> pushes) {
+    if (!pushTransport.isAvailable()) {
+      logger.debug("Skipping {} push notifications (Firebase not initialized)", pushes.size());
+      List<PushResult> results = pushes.stream().map(push -> PushResult.failed(push.token(), NOT_CONFIGURED)).toList();
+      pushMetrics.recordResults(results);
+      return results;
+    }
+
+    List<PushResult> results = new ArrayList<>(pushes.size());
+    for (int from = 0; from < pushes.size(); from += MAX_BATCH_SIZE) {
+      results.addAll(sendWithRetry(pushes.subList(from, Math.min(from + MAX_BATCH_SIZE, pushes.size()))));
+    }
+    return results;
+  }
+
+  // Re-sends the messages that failed with a retryable error, waiting twice as long before each
+  // attempt (up to maxBackoff). Gives up early when the circuit breaker opens.
+  private List<PushResult> sendWithRetry(List<PushMessage> batch) {
+    PushResult[] results = new PushResult[batch.size()];
+    List<Integer> pending = IntStream.range(0, batch.size()).boxed().toList();
+    for (int attempt = 1; ; attempt++) {
+      List<PushResult> attemptResults = sendBatch(pending.stream().map(batch::get).toList(), attempt > 1);
+      List<Integer> retry = new ArrayList<>();
+      for (int i = 0; i < pending.size(); i++) {
+        results[pending.get(i)] = attemptResults.get(i);
+        if (attemptResults.get(i).isRetryable()) {
+          retry.add(pending.get(i));
+        }
+      }
+      if (retry.isEmpty() || attempt >= maxAttempts || pushCircuitBreaker.isOpen() || !backOff(attempt)) {
+        return Arrays.asList(results);
+      }
+      pending = retry;
+    }
+  }
+
+  private boolean backOff(int attempt) {
+    long delay = Math.min(maxBackoff.toMillis(), initialBackoff.toMillis() << Math.min(attempt - 1, 20));
+    try {
+      Thread.sleep(delay);
+      return true;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
+    }
   }
 
-  public void sendToDevice(String token, String notificationMessage) {
-    if (this.firebaseMessaging == null) {
-      logger.warn("Skipping FCM push notification (Firebase not initialized): {}", notificationMessage);
-      return;
+  // A retry only carries messages that already failed, see PushCircuitBreaker#recordRetryFailure
+  private List<PushResult> sendBatch(List<PushMessage> batch, boolean retry) {
+    if (!pushCircuitBreaker.allowRequest()) {
+      List<PushResult> results = batch.stream().map(push -> PushResult.failed(push.token(), PushResult.CIRCUIT_OPEN)).toList();
+      pushMetrics.recordResults(results);
+      return results;
     }
 
+    Timer.Sample sample = pushMetrics.startSend();
     try {
-      Notification notification = Notification.builder()
-        .setTitle("ResQFood")
-        .setBody(notificationMessage)
-        .build();
-
-      Message message = Message.builder()
-        .setToken(token)
-        .setNotification(notification)
-        .setAndroidConfig(AndroidConfig.builder()
-            .setPriority(AndroidConfig.Priority.HIGH)
-            .setNotification(AndroidNotification.builder()
-                .setIcon("ic_notification")
-                .setColor("#4caf50")
-                .setPriority(AndroidNotification.Priority.HIGH)
-                .build())
-            .build())
-        .putData("title", "ResQFood")
-        .putData("body", notificationMessage)
-        .build();
-
-      firebaseMessaging.send(message);
-      logger.info("Successfully sent FCM push notification to token {}", token);
-    } catch (Exception e) {
-        logger.error("Failed to send FCM push notification: ", e);
+      List<PushResult> results = pushTransport.send(batch);
+      pushMetrics.recordSent(sample, results);
+      // A call where every message hit a server side error means FCM itself is in trouble
+      if (!results.stream().allMatch(PushResult::isRetryable)) {
+        pushCircuitBreaker.recordSuccess();
+      } else if (retry) {
+        pushCircuitBreaker.recordRetryFailure();
+      } else {
+        pushCircuitBreaker.recordFailure();
+      }
+      return results;
+    } catch (PushTransportException e) {
+      pushMetrics.recordSendFailed(sample, e.getErrorCode(), batch.size());
+      pushCircuitBreaker.recordFailure();
+      logger.warn("Failed to send a batch of {} push notifications: {}", batch.size(), e.getErrorCode());
+      return batch.stream().map(push -> PushResult.failed(push.token(), e.getErrorCode())).toList();
+    } catch (RuntimeException e) {
+      // A bug rather than an FCM answer, but the call still has to end a half open trial
+      pushMetrics.recordSendFailed(sample, "UNKNOWN", batch.size());
+      pushCircuitBreaker.recordFailure();
+      throw e;
     }
   }
 }
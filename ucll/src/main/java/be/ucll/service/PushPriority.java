@@ -0,0 +1,8 @@
+package be.ucll.service;
+
+// Delivery lane of a push, highest first. HIGH (expiry alerts and digests) always drains first,
+// LOW (Inventory Update confirmations) gets what is left and is dropped once it went stale.
+// Chosen by whoever creates the notification, see NotificationService#createAndSendNotifications.
+public enum PushPriority {
+    HIGH, LOW
+}
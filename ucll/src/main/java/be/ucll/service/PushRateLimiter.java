@@ -0,0 +1,67 @@
+package be.ucll.service;
+
+import java.util.concurrent.TimeUnit;
+
+// Token bucket for the outbound pushes of one PushLane: refills at permitsPerSecond, holds at most burst tokens.
+public class PushRateLimiter {
+
+    private final double permitsPerSecond;
+    private final double burst;
+
+    private double tokens;
+    private long lastRefill;
+
+    public PushRateLimiter(double permitsPerSecond, double burst) {
+        if (permitsPerSecond <= 0 || burst < 1) {
+            throw new IllegalArgumentException("Push rate limit needs a positive rate and a burst of at least 1");
+        }
+        this.permitsPerSecond = permitsPerSecond;
+        this.burst = burst;
+        this.tokens = burst;
+        this.lastRefill = System.nanoTime();
+    }
+
+    public synchronized boolean tryAcquire() {
+        refill();
+        if (tokens < 1) {
+            return false;
+        }
+        tokens--;
+        return true;
+    }
+
+    // Takes up to max tokens without waiting and returns how many it got
+    public synchronized int tryAcquire(int max) {
+        refill();
+        int taken = (int) Math.min(max, Math.floor(tokens));
+        tokens -= taken;
+        return taken;
+    }
+
+    // Gives back tokens that were taken but not used
+    public synchronized void release(int permits) {
+        tokens = Math.min(burst, tokens + permits);
+    }
+
+    // Blocks until a token is available.
+    public void acquire() throws InterruptedException {
+        while (true) {
+            long waitNanos;
+            synchronized (this) {
+                refill();
+                if (tokens >= 1) {
+                    tokens--;
+                    return;
+                }
+                waitNanos = (long) ((1 - tokens) / permitsPerSecond * TimeUnit.SECONDS.toNanos(1));
+            }
+            TimeUnit.NANOSECONDS.sleep(Math.max(waitNanos, 1));
+        }
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        tokens = Math.min(burst, tokens + (now - lastRefill) * permitsPerSecond / TimeUnit.SECONDS.toNanos(1));
+        lastRefill = now;
+    }
+}
@@ -0,0 +1,45 @@
+package be.ucll.service;
+
+import java.util.Set;
+
+// Outcome of one push. errorCode is the FCM error code (e.g. UNREGISTERED) when it failed.
+public record PushResult(String token, String messageId, String errorCode) {
+
+    // Not sent because the FCM circuit breaker is open
+    public static final String CIRCUIT_OPEN = "CIRCUIT_OPEN";
+
+    // Server side or quota problems: the same push may well succeed later
+    private static final Set<String> RETRYABLE_ERRORS =
+            Set.of("UNAVAILABLE", "INTERNAL", "QUOTA_EXCEEDED", "DEADLINE_EXCEEDED", "UNKNOWN", CIRCUIT_OPEN);
+
+    // The app was uninstalled or the token expired: it will never work again
+    private static final Set<String> DEAD_TOKEN_ERRORS = Set.of("UNREGISTERED");
+
+    // Usually a malformed or foreign token, but can also be caused by the message: counted, not trusted at once
+    private static final Set<String> TOKEN_ERRORS = Set.of("INVALID_ARGUMENT", "SENDER_ID_MISMATCH");
+
+    public static PushResult delivered(String token, String messageId) {
+        return new PushResult(token, messageId, null);
+    }
+
+    public static PushResult failed(String token, String errorCode) {
+        return new PushResult(token, null, errorCode);
+    }
+
+    public boolean isDelivered() {
+        return this.errorCode == null;
+    }
+
+    public boolean isDeadToken() {
+        return this.errorCode != null && DEAD_TOKEN_ERRORS.contains(this.errorCode);
+    }
+
+    // Transient errors (UNAVAILABLE, INTERNAL, QUOTA_EXCEEDED, ...) say nothing about the token
+    public boolean isTokenError() {
+        return this.errorCode != null && TOKEN_ERRORS.contains(this.errorCode);
+    }
+
+    public boolean isRetryable() {
+        return this.errorCode != null && RETRYABLE_ERRORS.contains(this.errorCode);
+    }
+}
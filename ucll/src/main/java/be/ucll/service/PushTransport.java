@@ -0,0 +1,17 @@
+package be.ucll.service;
+
+import java.util.List;
+
+// Hands batches of pushes to the devices. push.transport picks the implementation:
+// fcm (FcmPushTransport), stub (HttpPushTransport against a FakeFcmServer) or memory (RecordingPushTransport).
+public interface PushTransport {
+
+    // Returns one result per message, in the order of the batch.
+    // Throws when the call as a whole failed, e.g. because the service could not be reached.
+    List<PushResult> send(List<PushMessage> batch) throws PushTransportException;
+
+    // False when the transport cannot send at all, e.g. FCM without credentials
+    default boolean isAvailable() {
+        return true;
+    }
+}
@@ -0,0 +1,16 @@
+package be.ucll.service;
+
+// A send call that failed as a whole; errorCode uses the FCM error names (UNAVAILABLE, INTERNAL, ...)
+public class PushTransportException extends Exception {
+
+    private final String errorCode;
+
+    public PushTransportException(String errorCode, String message, Throwable cause) {
+        super(message, cause);
+        this.errorCode = errorCode;
+    }
+
+    public String getErrorCode() {
+        return this.errorCode;
+    }
+}
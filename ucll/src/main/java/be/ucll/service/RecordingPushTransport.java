@@ -0,0 +1,33 @@
+package be.ucll.service;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Keeps every push in memory and reports it as delivered. For tests and load tests only: nothing is ever evicted.
+public class RecordingPushTransport implements PushTransport {
+
+    private final Queue<PushMessage> sent = new ConcurrentLinkedQueue<>();
+    private final AtomicLong messageIds = new AtomicLong();
+
+    @Override
+    public List<PushResult> send(List<PushMessage> batch) {
+        sent.addAll(batch);
+        return batch.stream()
+                .map(push -> PushResult.delivered(push.token(), "memory/" + messageIds.incrementAndGet()))
+                .toList();
+    }
+
+    public List<PushMessage> getSent() {
+        return List.copyOf(sent);
+    }
+
+    public long getSentCount() {
+        return messageIds.get();
+    }
+
+    public void clear() {
+        sent.clear();
+    }
+}
@@ -3,6 +3,7 @@ package be.ucll.service;
 import java.time.LocalDate;
 import java.util.List;
 
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 import be.ucll.dto.UserItemResponseDTO;
@@ -14,25 +15,26 @@ import be.ucll.model.UserItem;
 import be.ucll.repository.ItemRepository;
 import be.ucll.repository.UserItemRepository;
 import be.ucll.repository.UserRepository;
+import be.ucll.scheduler.ReminderRescheduledEvent;
 import jakarta.transaction.Transactional;
 
 @Service
 public class UserItemService {
 
-    private final NotificationService notificationService;
-
     private final UserItemRepository userItemRepository;
 
     private final ItemRepository itemRepository;
 
     private final UserRepository userRepository;
 
+    private final ApplicationEventPublisher eventPublisher;
+
     public UserItemService(UserItemRepository userItemRepository, ItemRepository itemRepository,
-            NotificationService notificationService, UserRepository userRepository) {
+            UserRepository userRepository, ApplicationEventPublisher eventPublisher) {
         this.userItemRepository = userItemRepository;
         this.itemRepository = itemRepository;
-        this.notificationService = notificationService;
         this.userRepository = userRepository;
+        this.eventPublisher = eventPublisher;
     }
 
     public List<UserItem> getInventoryForUser(User user) {
@@ -89,31 +91,24 @@ public class UserItemService {
             entity.setOpenedDate(dto.openedDate());
             entity.setOpenedRule(dto.openedRule());
             entity.setDescription(dto.description());
+            entity.scheduleNextReminder(LocalDate.now(entity.getUser().getZoneId()));
 
-            return UserItemMapper.toDTO(userItemRepository.save(entity));
+            UserItem saved = userItemRepository.save(entity);
+            eventPublisher.publishEvent(new ReminderRescheduledEvent(saved.getId(), saved.getNextReminderAt()));
+
+            return UserItemMapper.toDTO(saved);
         }).toList();
 
+        // Confirmed by the InventoryUpdateCoalescer, together with the user's other changes of the last seconds
         if (!results.isEmpty()) {
-            Long relatedItemId = (results.size() == 1) ? results.get(0).id() : null;
-
-            String message = (results.size() == 1)
-                    ? "Item '" + results.get(0).itemName() + "' successfully saved!"
-                    : results.size() + " items successfully saved!";
-
-            sendSuccessNotification(user, message, relatedItemId);
+            eventPublisher.publishEvent(InventoryUpdatedEvent.saved(user.getId(),
+                    results.stream().map(UserItemResponseDTO::id).toList(),
+                    results.stream().map(UserItemResponseDTO::itemName).toList()));
         }
 
         return results;
     }
 
-    private void sendSuccessNotification(User user, String message, Long relatedItemId) {
-        notificationService.createAndSendNotification(
-                user,
-                "Inventory Update",
-                message,
-                relatedItemId);
-    }
-
     @Transactional
     public void deleteUserItem(Long id, User user) {
         UserItem userItem = userItemRepository.findById(id)
@@ -135,7 +130,8 @@ public class UserItemService {
         }
         
         userItemRepository.delete(userItem);
+        eventPublisher.publishEvent(new ReminderRescheduledEvent(userItem.getId(), null));
 
-        sendSuccessNotification(user, "Instance of item successfully removed!", null);
+        eventPublisher.publishEvent(InventoryUpdatedEvent.removed(user.getId()));
     }
 }
@@ -4,6 +4,7 @@ import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
 
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
@@ -17,6 +18,7 @@ import be.ucll.repository.ItemRepository;
 import be.ucll.repository.UserDeviceTokenRepository;
 import be.ucll.repository.UserItemRepository;
 import be.ucll.repository.UserRepository;
+import be.ucll.scheduler.ReminderRescheduledEvent;
 import jakarta.transaction.Transactional;
 
 @Service
@@ -26,13 +28,15 @@ public class UserService {
     private final UserItemRepository userItemRepository;
     private final PasswordEncoder passwordEncoder;
     private final UserDeviceTokenRepository userDeviceTokenRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public UserService(UserRepository userRepository, ItemRepository itemRepository, UserItemRepository userItemRepository, PasswordEncoder passwordEncoder, UserDeviceTokenRepository userDeviceTokenRepository) {
+    public UserService(UserRepository userRepository, ItemRepository itemRepository, UserItemRepository userItemRepository, PasswordEncoder passwordEncoder, UserDeviceTokenRepository userDeviceTokenRepository, ApplicationEventPublisher eventPublisher) {
         this.userRepository = userRepository;
         this.itemRepository = itemRepository;
         this.userItemRepository = userItemRepository;
         this.passwordEncoder = passwordEncoder;
         this.userDeviceTokenRepository = userDeviceTokenRepository;
+        this.eventPublisher = eventPublisher;
     }
 
     public List<User> getAllUsers() {
@@ -65,6 +69,7 @@ public class UserService {
         if (updatedUser.getEmail() != null) existingUser.setEmail(updatedUser.getEmail());
         if (updatedUser.getUsername() != null) existingUser.setUsername(updatedUser.getUsername());
         if (updatedUser.getPassword() != null) existingUser.setPassword(updatedUser.getPassword());
+        if (updatedUser.getTimeZone() != null) existingUser.setTimeZone(updatedUser.getTimeZone());
 
         return userRepository.save(existingUser);
     }
@@ -89,7 +94,9 @@ public class UserService {
 
         if (!alreadyLinked) {
             UserItem userItem = new UserItem(user, item, expirationDate);
+            userItem.scheduleNextReminder(LocalDate.now(user.getZoneId()));
             userItemRepository.save(userItem);
+            eventPublisher.publishEvent(new ReminderRescheduledEvent(userItem.getId(), userItem.getNextReminderAt()));
             user.addUserItem(userItem);
             item.addUserItem(userItem);
         }
@@ -110,6 +117,7 @@ public class UserService {
         user.removeUserItem(link);
         item.removeUserItem(link);
         userItemRepository.delete(link);
+        eventPublisher.publishEvent(new ReminderRescheduledEvent(link.getId(), null));
     }
 
     public void addDeviceToken(String username, String token, String deviceName) {
@@ -7,6 +7,8 @@ DROP TABLE IF EXISTS users CASCADE;
 DROP TABLE IF EXISTS items CASCADE;
 DROP TABLE IF EXISTS user_device_tokens CASCADE;
 DROP TABLE IF EXISTS households CASCADE;
+DROP TABLE IF EXISTS scheduler_leases CASCADE;
+DROP TABLE IF EXISTS notification_outbox CASCADE;
 
 DROP TABLE IF EXISTS SPRING_SESSION_ATTRIBUTES CASCADE;
 DROP TABLE IF EXISTS SPRING_SESSION CASCADE;
@@ -23,6 +25,8 @@ CREATE TABLE users (
     password VARCHAR(72) NOT NULL,
     household_id BIGINT REFERENCES households(id) ON DELETE SET NULL,
     items_rescued INTEGER NOT NULL DEFAULT 0,
+    time_zone VARCHAR(64),
+    last_read_notification_id BIGINT NOT NULL DEFAULT 0,
     created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
     updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
 );
@@ -33,11 +37,35 @@ CREATE TABLE notifications (
     title VARCHAR(255),
     message VARCHAR(255),
     related_item_id BIGINT,
+    related_item_ids VARCHAR(2000),
+    dedup_key VARCHAR(128),
     timestamp TIMESTAMP(6) NOT NULL DEFAULT CURRENT_TIMESTAMP,
-    is_read BOOLEAN NOT NULL DEFAULT FALSE
+    is_read BOOLEAN NOT NULL DEFAULT FALSE,
+    deliver_at TIMESTAMP,
+    push_priority VARCHAR(8)
 );
 
-CREATE INDEX idx_notifications_user_id ON notifications(user_id);
+-- Serves the keyset-paginated feed (newest first) and everything else looked up by user_id
+CREATE INDEX idx_notifications_user_timestamp ON notifications(user_id, timestamp DESC, id DESC);
+-- Unread counts range-scan the ids above users.last_read_notification_id, "mark all as read" reads the highest
+CREATE INDEX idx_notifications_user_id_id ON notifications(user_id, id);
+CREATE UNIQUE INDEX uq_notifications_dedup_key ON notifications(dedup_key);
+-- Serves the refills of DeferredNotificationDispatcher, which only look at the few rows with a deliver_at
+CREATE INDEX idx_notifications_deliver_at ON notifications(deliver_at);
+
+CREATE TABLE notification_outbox (
+    id BIGSERIAL PRIMARY KEY,
+    token VARCHAR(512) NOT NULL,
+    body VARCHAR(255) NOT NULL,
+    priority VARCHAR(8) NOT NULL DEFAULT 'HIGH',
+    created_at TIMESTAMP NOT NULL,
+    claimed_until TIMESTAMP,
+    delivered_at TIMESTAMP,
+    attempts INTEGER NOT NULL DEFAULT 0
+);
+
+-- Serves the relay (undelivered rows of one priority in id order) and the cleanup of old delivered rows
+CREATE INDEX idx_notification_outbox_pending ON notification_outbox(delivered_at, priority, id);
 
 CREATE TABLE items (
     id BIGSERIAL PRIMARY KEY,
@@ -56,20 +84,34 @@ CREATE TABLE users_items (
     opened_date DATE,
     opened_rule INTEGER,
     last_notified_at TIMESTAMP,
+    next_reminder_on DATE,
+    next_reminder_at TIMESTAMP,
     description VARCHAR(128),
     created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
     updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
 );
 
+CREATE INDEX idx_users_items_next_reminder_at ON users_items(next_reminder_at);
+CREATE INDEX idx_users_items_updated_at ON users_items(updated_at);
+
 CREATE TABLE user_device_tokens (
     id BIGSERIAL PRIMARY KEY,
     user_id BIGINT NOT NULL REFERENCES users(id) ON DELETE CASCADE,
     token VARCHAR(512) NOT NULL UNIQUE,
     device_name VARCHAR(255),
+    failure_count INTEGER NOT NULL DEFAULT 0,
     created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
     updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
 );
 
+CREATE TABLE scheduler_leases (
+    shard_id INTEGER PRIMARY KEY,
+    owner VARCHAR(100),
+    expires_at TIMESTAMP NOT NULL,
+    watermark TIMESTAMP,
+    full_pass_on DATE
+);
+
 -- -------------------------------
 -- Spring Session tables
 -- -------------------------------
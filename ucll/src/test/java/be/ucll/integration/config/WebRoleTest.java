@@ -0,0 +1,61 @@
+package be.ucll.integration.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.scheduling.annotation.ScheduledAnnotationBeanPostProcessor;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.web.context.WebApplicationContext;
+
+import com.google.firebase.FirebaseApp;
+
+import be.ucll.scheduler.ExpiryScheduler;
+import be.ucll.scheduler.ExpiryWheelScheduler;
+import be.ucll.scheduler.NotificationOutboxRelay;
+import be.ucll.service.DeviceTokenPruner;
+import be.ucll.service.NotificationService;
+import be.ucll.service.PushCircuitBreaker;
+import be.ucll.service.PushDispatcher;
+import be.ucll.service.PushLane;
+import be.ucll.service.PushNotificationService;
+import be.ucll.service.PushTransport;
+
+@SpringBootTest
+@ActiveProfiles({ "test", "web" })
+@TestPropertySource(properties = {
+        "jwt.secret=Y8r3mP9wQ2tF6sV1xB7eH4kN0uJ5cR8Z",
+        "jwt.expiration=3600000"
+})
+@DirtiesContext
+class WebRoleTest {
+
+    @Autowired
+    private ApplicationContext context;
+
+    @Test
+    void webRole_servesRequestsWithoutScheduling() {
+        assertThat(context).isInstanceOf(WebApplicationContext.class);
+        assertThat(context.getBeanNamesForType(ScheduledAnnotationBeanPostProcessor.class)).isEmpty();
+        assertThat(context.getBeanNamesForType(ExpiryScheduler.class)).isEmpty();
+        assertThat(context.getBeanNamesForType(ExpiryWheelScheduler.class)).isEmpty();
+    }
+
+    @Test
+    void webRole_holdsNoPushStack() {
+        assertThat(context.getBeanNamesForType(FirebaseApp.class)).isEmpty();
+        assertThat(context.getBeanNamesForType(PushTransport.class)).isEmpty();
+        assertThat(context.getBeanNamesForType(PushLane.class)).isEmpty();
+        assertThat(context.getBeanNamesForType(PushDispatcher.class)).isEmpty();
+        assertThat(context.getBeanNamesForType(PushNotificationService.class)).isEmpty();
+        assertThat(context.getBeanNamesForType(PushCircuitBreaker.class)).isEmpty();
+        assertThat(context.getBeanNamesForType(DeviceTokenPruner.class)).isEmpty();
+        assertThat(context.getBeanNamesForType(NotificationOutboxRelay.class)).isEmpty();
+        // Notifications still write their pushes to the outbox
+        assertThat(context.getBeanNamesForType(NotificationService.class)).hasSize(1);
+    }
+}
@@ -0,0 +1,62 @@
+package be.ucll.integration.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.boot.test.web.server.LocalManagementPort;
+import org.springframework.context.ApplicationContext;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.annotation.ScheduledAnnotationBeanPostProcessor;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import be.ucll.scheduler.ExpiryScheduler;
+import be.ucll.service.PushNotificationService;
+
+// DEFINED_PORT keeps the profile's server.port of -1, so only the management server listens
+@SpringBootTest(webEnvironment = WebEnvironment.DEFINED_PORT)
+@ActiveProfiles({ "test", "worker" })
+@TestPropertySource(properties = {
+        "jwt.secret=Y8r3mP9wQ2tF6sV1xB7eH4kN0uJ5cR8Z",
+        "jwt.expiration=3600000",
+        "management.server.port=0"
+})
+@DirtiesContext
+class WorkerRoleTest {
+
+    @Autowired
+    private ApplicationContext context;
+
+    @Autowired
+    private Environment environment;
+
+    @LocalManagementPort
+    private int managementPort;
+
+    @Test
+    void workerRole_runsTheSchedulerWithoutTheHttpPort() {
+        assertThat(environment.getProperty("server.port", Integer.class)).isEqualTo(-1);
+        assertThat(context.getBeanNamesForType(ExpiryScheduler.class)).hasSize(1);
+        assertThat(context.getBeanNamesForType(ScheduledAnnotationBeanPostProcessor.class)).isNotEmpty();
+        assertThat(context.getBeanNamesForType(PushNotificationService.class)).hasSize(1);
+    }
+
+    @Test
+    void workerRole_servesPushMetricsOnTheManagementPort() throws Exception {
+        HttpResponse<String> response = HttpClient.newHttpClient().send(
+                HttpRequest.newBuilder(URI.create("http://localhost:" + managementPort + "/actuator/metrics")).build(),
+                HttpResponse.BodyHandlers.ofString());
+
+        assertThat(response.statusCode()).isEqualTo(200);
+        assertThat(response.body()).contains("push.dispatch.queue.depth");
+    }
+}
@@ -87,7 +87,7 @@ class NotificationControllerTest {
         mockMvc.perform(put("/notifications/read-all"))
                 .andExpect(status().isOk());
 
-        long unreadCount = notificationRepository.countByUser_UsernameAndIsReadFalse("testuser");
+        long unreadCount = notificationRepository.countUnread("testuser");
         assertThat(unreadCount).isZero();
     }
 
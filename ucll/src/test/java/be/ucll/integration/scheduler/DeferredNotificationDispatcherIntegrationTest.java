@@ -0,0 +1,100 @@
+package be.ucll.integration.scheduler;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import be.ucll.model.Notification;
+import be.ucll.model.User;
+import be.ucll.model.UserDeviceToken;
+import be.ucll.repository.NotificationRepository;
+import be.ucll.repository.UserRepository;
+import be.ucll.scheduler.DeferredNotificationDispatcher;
+import be.ucll.scheduler.NotificationDeferredEvent;
+import be.ucll.service.NotificationService;
+import be.ucll.support.MutableClock;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@TestPropertySource(properties = {
+        "jwt.secret=Y8r3mP9wQ2tF6sV1xB7eH4kN0uJ5cR8Z",
+        "jwt.expiration=3600000",
+        "scheduler.expiry.engine=off"
+})
+class DeferredNotificationDispatcherIntegrationTest {
+
+    @Autowired
+    private NotificationService notificationService;
+
+    @Autowired
+    private NotificationRepository notificationRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        cleanUp();
+        User snoozer = new User("snooze_user", "snooze@example.com", "Password123!");
+        snoozer.addDeviceToken(new UserDeviceToken(snoozer, "snooze-phone", "Phone"));
+        user = userRepository.save(snoozer);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        jdbcTemplate.update("DELETE FROM resqfood.notification_outbox WHERE token = 'snooze-phone'");
+        jdbcTemplate.update("DELETE FROM resqfood.notifications WHERE user_id IN (SELECT id FROM resqfood.users WHERE username = 'snooze_user')");
+        userRepository.findByUsername("snooze_user").ifPresent(userRepository::delete);
+    }
+
+    @Test
+    void snoozedNotification_survivesARestart_andComesBackOnceDue() {
+        // Given
+        Notification notification = notificationRepository.save(new Notification(user, "Expiry Alert", "Your milk expires today!", null));
+        Instant until = Instant.now().plus(1, ChronoUnit.HOURS).truncatedTo(ChronoUnit.SECONDS);
+        notificationService.snooze(notification.getId(), "snooze_user", until);
+        assertThat(notificationService.getUserNotifications("snooze_user", null, 50)).isEmpty();
+        // Reading everything while it is hidden does not cover it
+        notificationService.markAllAsRead("snooze_user");
+
+        // When: a node that starts after the snooze and reads the queue back from the database
+        MutableClock clock = new MutableClock(until, ZoneOffset.UTC);
+        DeferredNotificationDispatcher restarted = new DeferredNotificationDispatcher(notificationRepository, notificationService,
+                clock, Duration.ofMinutes(10), 60000, 500);
+        restarted.refill();
+
+        // Then
+        assertThat(restarted.deliverDue()).isEqualTo(1);
+        assertThat(notificationService.getUserNotifications("snooze_user", null, 50)).singleElement()
+                .satisfies(delivered -> {
+                    assertThat(delivered.id()).isGreaterThan(notification.getId());
+                    assertThat(delivered.message()).isEqualTo("Your milk expires today!");
+                    assertThat(delivered.isRead()).isFalse();
+                });
+        assertThat(notificationService.getUnreadCount("snooze_user")).isEqualTo(1);
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM resqfood.notification_outbox WHERE token = 'snooze-phone'", Long.class)).isEqualTo(1);
+
+        // A second node holding the same delivery sends nothing
+        restarted.onNotificationDeferred(new NotificationDeferredEvent(notification.getId(), LocalDateTime.ofInstant(until, ZoneOffset.UTC)));
+        assertThat(restarted.deliverDue()).isZero();
+    }
+}
@@ -0,0 +1,298 @@
+package be.ucll.integration.scheduler;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import be.ucll.model.Item;
+import be.ucll.model.Notification;
+import be.ucll.model.User;
+import be.ucll.model.UserItem;
+import be.ucll.repository.ItemRepository;
+import be.ucll.repository.NotificationRepository;
+import be.ucll.repository.SchedulerLeaseRepository;
+import be.ucll.repository.UserItemBatchRepository;
+import be.ucll.repository.UserItemRepository;
+import be.ucll.repository.UserRepository;
+import be.ucll.scheduler.ExpiryReminderProcessor;
+import be.ucll.scheduler.ExpiryScheduler;
+import be.ucll.scheduler.Shard;
+import be.ucll.scheduler.ShardLeaseManager;
+
+// Simulates several replicas sharing one H2 database, each with its own ExpiryScheduler and node id.
+@SpringBootTest
+@ActiveProfiles("test")
+@TestPropertySource(properties = {
+        "jwt.secret=Y8r3mP9wQ2tF6sV1xB7eH4kN0uJ5cR8Z",
+        "jwt.expiration=3600000",
+        "scheduler.expiry.engine=off"
+})
+class ExpirySchedulerClusterTest {
+
+    private static final int SHARDS = 4;
+    private static final int USERS = 12;
+    private static final int ITEMS_PER_USER = 2;
+
+    @Autowired
+    private ExpiryReminderProcessor expiryReminderProcessor;
+
+    @Autowired
+    private SchedulerLeaseRepository schedulerLeaseRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private UserItemRepository userItemRepository;
+
+    @Autowired
+    private NotificationRepository notificationRepository;
+
+    @Autowired
+    private UserItemBatchRepository userItemBatchRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final Clock clock = Clock.systemDefaultZone();
+
+    @BeforeEach
+    void setUp() {
+        cleanUp();
+
+        Item milk = itemRepository.save(new Item("Milk", Item.Type.DAIRY));
+        for (int i = 0; i < USERS; i++) {
+            User user = userRepository.save(new User("cluster_user_" + i, "cluster" + i + "@example.com", "Password123!"));
+            for (int j = 0; j < ITEMS_PER_USER; j++) {
+                UserItem userItem = new UserItem(user, milk, LocalDate.now());
+                userItem.scheduleNextReminder(LocalDate.now());
+                // Don't wait for the morning delivery window
+                userItem.setNextReminderAt(LocalDateTime.now(ZoneOffset.UTC).minusMinutes(1));
+                userItemRepository.save(userItem);
+            }
+        }
+    }
+
+    @AfterEach
+    void cleanUp() {
+        notificationRepository.deleteAll();
+        userItemRepository.deleteAll();
+        userRepository.deleteAll();
+        itemRepository.deleteAll();
+        schedulerLeaseRepository.deleteAll();
+    }
+
+    @Test
+    void concurrentNodes_neverDuplicateSends() throws Exception {
+        // Given
+        List<ExpiryScheduler> nodes = List.of(node("node-a", clock), node("node-b", clock), node("node-c", clock));
+        ExecutorService executor = Executors.newFixedThreadPool(nodes.size());
+        CountDownLatch start = new CountDownLatch(1);
+
+        // When
+        List<Future<?>> runs = new ArrayList<>();
+        for (ExpiryScheduler node : nodes) {
+            runs.add(executor.submit(() -> {
+                start.await();
+                for (int run = 0; run < 3; run++) {
+                    node.checkExpiries();
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> run : runs) {
+            run.get();
+        }
+        executor.shutdown();
+
+        // Then
+        Map<Long, Long> sendsPerItem = notificationRepository.findAll().stream()
+                .collect(Collectors.groupingBy(Notification::getRelatedItemId, Collectors.counting()));
+        assertThat(sendsPerItem).hasSize(USERS * ITEMS_PER_USER);
+        assertThat(sendsPerItem.values()).containsOnly(1L);
+    }
+
+    @Test
+    void leasedShard_isSkippedUntilTheLeaseExpires() {
+        // Given
+        Shard stuckShard = new Shard(0, SHARDS);
+        ShardLeaseManager crashedNode = new ShardLeaseManager(schedulerLeaseRepository, clock, "node-crashed", SHARDS, Duration.ofMinutes(5));
+        assertThat(crashedNode.tryAcquire(stuckShard)).isTrue();
+
+        // When
+        node("node-b", clock).checkExpiries();
+
+        // Then
+        List<Long> notifiedUsers = notifiedUserIds();
+        assertThat(notifiedUsers).isNotEmpty().noneMatch(stuckShard::owns);
+
+        // When the crashed node's lease has run out
+        node("node-b", Clock.offset(clock, Duration.ofMinutes(10))).checkExpiries();
+
+        // Then
+        assertThat(notifiedUserIds()).hasSize(USERS * ITEMS_PER_USER).anyMatch(stuckShard::owns);
+    }
+
+    @Test
+    void nodesInDifferentTimeZones_agreeOnWhenALeaseExpires() {
+        // Given: the same instant, seen from two replicas configured for zones 19 hours apart
+        Shard shard = new Shard(0, SHARDS);
+        Clock losAngeles = clock.withZone(ZoneId.of("America/Los_Angeles"));
+        Clock auckland = clock.withZone(ZoneId.of("Pacific/Auckland"));
+        ShardLeaseManager westNode = new ShardLeaseManager(schedulerLeaseRepository, losAngeles, "node-west", SHARDS, Duration.ofMinutes(5));
+        ShardLeaseManager eastNode = new ShardLeaseManager(schedulerLeaseRepository, auckland, "node-east", SHARDS, Duration.ofMinutes(5));
+        assertThat(westNode.tryAcquire(shard)).isTrue();
+
+        // When / Then
+        assertThat(eastNode.tryAcquire(shard)).isFalse();
+        assertThat(new ShardLeaseManager(schedulerLeaseRepository, Clock.offset(auckland, Duration.ofMinutes(10)), "node-east",
+                SHARDS, Duration.ofMinutes(5)).tryAcquire(shard)).isTrue();
+        assertThat(westNode.tryAcquire(shard)).isFalse();
+    }
+
+    @Test
+    void reminderWriteBack_leavesRowsTheUserChangedSinceTheyWereRead() {
+        // Given: a run has read two items, then the user moves the reminder of one of them
+        List<UserItem> read = userItemRepository.findAll().subList(0, 2);
+        UserItem edited = read.get(0);
+        LocalDateTime userChoice = LocalDateTime.now(ZoneOffset.UTC).plusDays(3).withNano(0);
+        jdbcTemplate.update("UPDATE resqfood.users_items SET next_reminder_at = ?, updated_at = ? WHERE id = ?",
+                userChoice, LocalDateTime.now(ZoneOffset.UTC).plusSeconds(1), edited.getId());
+        LocalDateTime scheduled = LocalDateTime.now(ZoneOffset.UTC).plusDays(1).withNano(0);
+        read.forEach(userItem -> userItem.setNextReminderAt(scheduled));
+
+        // When
+        int skipped = userItemBatchRepository.updateReminders(read);
+
+        // Then
+        assertThat(skipped).isEqualTo(1);
+        assertThat(userItemRepository.findById(edited.getId()).orElseThrow().getNextReminderAt()).isEqualTo(userChoice);
+        assertThat(userItemRepository.findById(read.get(1).getId()).orElseThrow().getNextReminderAt()).isEqualTo(scheduled);
+    }
+
+    @Test
+    void sameDayRuns_onlyPickUpChangedRows_untilTheNextFullPass() {
+        // Given: a first run of the day that handles everything that is due
+        node("node-a", clock).checkExpiries();
+        long sentByFullPass = notificationRepository.count();
+
+        // A row that is due but unchanged since long before the watermark, e.g. left behind by a manual fix
+        UserItem untouched = userItemRepository.findAll().get(0);
+        LocalDateTime twoHoursAgo = LocalDateTime.now(ZoneOffset.UTC).minusHours(2);
+        jdbcTemplate.update("UPDATE resqfood.users_items SET next_reminder_at = ?, updated_at = ?, last_notified_at = NULL WHERE id = ?",
+                twoHoursAgo, twoHoursAgo, untouched.getId());
+
+        // A row the user edits during the day so it becomes due right away, now for another reminder stage
+        UserItem edited = userItemRepository.findAll().get(1);
+        edited.setExpirationDate(LocalDate.now().plusDays(1));
+        edited.setLastNotifiedAt(null);
+        edited.setNextReminderAt(LocalDateTime.now(ZoneOffset.UTC).minusMinutes(1));
+        userItemRepository.save(edited);
+
+        // When
+        node("node-a", clock).checkExpiries();
+
+        // Then
+        assertThat(notificationRepository.count()).isEqualTo(sentByFullPass + 1);
+        assertThat(notificationRepository.findAll()).filteredOn(n -> n.getRelatedItemId().equals(untouched.getId())).hasSize(1);
+        assertThat(notificationRepository.findAll()).filteredOn(n -> n.getRelatedItemId().equals(edited.getId())).hasSize(2);
+
+        // When the day rolls over
+        node("node-a", Clock.offset(clock, Duration.ofDays(1))).checkExpiries();
+
+        // Then
+        assertThat(notificationRepository.findAll()).filteredOn(n -> n.getRelatedItemId().equals(untouched.getId())).hasSize(2);
+    }
+
+    @Test
+    void rerunAfterLostReminderUpdates_doesNotDuplicateNotifications() {
+        // Given a run whose lastNotifiedAt and next reminder writes never made it, e.g. a retried chunk
+        node("node-a", clock).checkExpiries();
+        schedulerLeaseRepository.deleteAll();
+        jdbcTemplate.update("UPDATE resqfood.users_items SET last_notified_at = NULL, next_reminder_at = ?",
+                LocalDateTime.now(ZoneOffset.UTC).minusMinutes(1));
+
+        // When
+        node("node-b", clock).checkExpiries();
+
+        // Then
+        assertThat(notificationRepository.findAll())
+                .hasSize(USERS * ITEMS_PER_USER)
+                .allMatch(notification -> notification.getDedupKey() != null);
+    }
+
+    @Test
+    void parallelRun_sendsTheSameNotificationsAsASerialRun() {
+        // Given
+        node("node-a", clock).checkExpiries();
+        Set<String> serial = sentNotifications();
+        notificationRepository.deleteAll();
+        schedulerLeaseRepository.deleteAll();
+        jdbcTemplate.update("UPDATE resqfood.users_items SET last_notified_at = NULL, next_reminder_at = ?",
+                LocalDateTime.now(ZoneOffset.UTC).minusMinutes(1));
+
+        // When
+        ExpiryScheduler parallel = node("node-a", clock, 3);
+        try {
+            parallel.checkExpiries();
+        } finally {
+            parallel.shutdown();
+        }
+
+        // Then
+        assertThat(serial).hasSize(USERS * ITEMS_PER_USER);
+        assertThat(sentNotifications()).isEqualTo(serial);
+        assertThat(schedulerLeaseRepository.findAll()).hasSize(SHARDS).allMatch(lease -> lease.getWatermark() != null && !lease.getExpiresAt().isAfter(LocalDateTime.now(ZoneOffset.UTC)));
+    }
+
+    private ExpiryScheduler node(String nodeId, Clock nodeClock) {
+        return node(nodeId, nodeClock, 1);
+    }
+
+    private ExpiryScheduler node(String nodeId, Clock nodeClock, int parallelism) {
+        ShardLeaseManager leaseManager = new ShardLeaseManager(schedulerLeaseRepository, nodeClock, nodeId, SHARDS, Duration.ofMinutes(5));
+        return new ExpiryScheduler(expiryReminderProcessor, leaseManager, nodeClock, 5, Duration.ofMinutes(1), parallelism);
+    }
+
+    private Set<String> sentNotifications() {
+        return notificationRepository.findAll().stream()
+                .map(notification -> notification.getRelatedItemId() + "|" + notification.getTitle() + "|" + notification.getMessage())
+                .collect(Collectors.toSet());
+    }
+
+    private List<Long> notifiedUserIds() {
+        Map<Long, UserItem> userItems = userItemRepository.findAll().stream()
+                .collect(Collectors.toMap(UserItem::getId, Function.identity()));
+        return notificationRepository.findAll().stream()
+                .map(notification -> userItems.get(notification.getRelatedItemId()).getUser().getId())
+                .toList();
+    }
+}
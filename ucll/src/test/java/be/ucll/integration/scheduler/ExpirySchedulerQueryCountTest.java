@@ -0,0 +1,145 @@
+package be.ucll.integration.scheduler;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import be.ucll.model.Item;
+import be.ucll.model.User;
+import be.ucll.model.UserDeviceToken;
+import be.ucll.model.UserItem;
+import be.ucll.repository.ItemRepository;
+import be.ucll.repository.NotificationRepository;
+import be.ucll.repository.SchedulerLeaseRepository;
+import be.ucll.repository.UserItemRepository;
+import be.ucll.repository.UserRepository;
+import be.ucll.scheduler.ExpiryReminderProcessor;
+import be.ucll.scheduler.ExpiryScheduler;
+import be.ucll.scheduler.ShardLeaseManager;
+import be.ucll.simulation.QueryCountingDataSource;
+
+// A scheduler run that fits in one chunk must cost the same number of round trips whatever the number of items.
+@SpringBootTest
+@ActiveProfiles("test")
+@TestPropertySource(properties = {
+        "jwt.secret=Y8r3mP9wQ2tF6sV1xB7eH4kN0uJ5cR8Z",
+        "jwt.expiration=3600000",
+        "scheduler.expiry.engine=off",
+        "push.outbox.poll-interval=3600000"
+})
+class ExpirySchedulerQueryCountTest {
+
+    @TestConfiguration
+    static class QueryCountConfig {
+
+        @Bean
+        static BeanPostProcessor queryCountingDataSource() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    if (bean instanceof DataSource dataSource && !(bean instanceof QueryCountingDataSource)) {
+                        return new QueryCountingDataSource(dataSource);
+                    }
+                    return bean;
+                }
+            };
+        }
+    }
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private ExpiryReminderProcessor expiryReminderProcessor;
+
+    @Autowired
+    private SchedulerLeaseRepository schedulerLeaseRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private UserItemRepository userItemRepository;
+
+    @Autowired
+    private NotificationRepository notificationRepository;
+
+    private final Clock clock = Clock.systemDefaultZone();
+
+    @BeforeEach
+    @AfterEach
+    void cleanUp() {
+        notificationRepository.deleteAll();
+        userItemRepository.deleteAll();
+        userRepository.deleteAll();
+        itemRepository.deleteAll();
+        schedulerLeaseRepository.deleteAll();
+    }
+
+    @Test
+    void run_costsTheSameNumberOfQueries_asTheInventoryGrows() {
+        // Given
+        seed(2, 3);
+        long small = countQueries(this::runScheduler);
+        long smallNotifications = notificationRepository.count();
+        cleanUp();
+        seed(20, 10);
+
+        // When
+        long large = countQueries(this::runScheduler);
+
+        // Then
+        assertThat(smallNotifications).isEqualTo(6);
+        assertThat(notificationRepository.count()).isEqualTo(200);
+        assertThat(large).isEqualTo(small);
+    }
+
+    private void runScheduler() {
+        ShardLeaseManager leaseManager = new ShardLeaseManager(schedulerLeaseRepository, clock, "node-a", 1, Duration.ofMinutes(5));
+        new ExpiryScheduler(expiryReminderProcessor, leaseManager, clock, 1000, Duration.ofMinutes(1), 1).checkExpiries();
+    }
+
+    private long countQueries(Runnable run) {
+        QueryCountingDataSource counter = (QueryCountingDataSource) dataSource;
+        long before = counter.getQueryCount();
+        run.run();
+        return counter.getQueryCount() - before;
+    }
+
+    private void seed(int users, int itemsPerUser) {
+        for (int i = 0; i < users; i++) {
+            Item item = itemRepository.save(new Item("Item " + i, Item.Type.DAIRY));
+            User user = new User("query_count_user_" + i, "querycount" + i + "@example.com", "Password123!");
+            user.getDeviceTokens().add(new UserDeviceToken(user, "token-" + i + "-a", "Phone"));
+            user.getDeviceTokens().add(new UserDeviceToken(user, "token-" + i + "-b", "Tablet"));
+            userRepository.save(user);
+            for (int j = 0; j < itemsPerUser; j++) {
+                UserItem userItem = new UserItem(user, item, LocalDate.now());
+                userItem.scheduleNextReminder(LocalDate.now());
+                // Don't wait for the morning delivery window
+                userItem.setNextReminderAt(LocalDateTime.now(ZoneOffset.UTC).minusMinutes(1));
+                userItemRepository.save(userItem);
+            }
+        }
+    }
+}
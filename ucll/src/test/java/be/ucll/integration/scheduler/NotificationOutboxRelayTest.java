@@ -0,0 +1,200 @@
+package be.ucll.integration.scheduler;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import be.ucll.model.User;
+import be.ucll.model.UserDeviceToken;
+import be.ucll.repository.NotificationOutboxRepository;
+import be.ucll.repository.NotificationRepository;
+import be.ucll.repository.UserRepository;
+import be.ucll.scheduler.NotificationOutboxRelay;
+import be.ucll.service.NotificationService;
+import be.ucll.service.PushMessage;
+import be.ucll.service.PushPriority;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@TestPropertySource(properties = {
+        "jwt.secret=Y8r3mP9wQ2tF6sV1xB7eH4kN0uJ5cR8Z",
+        "jwt.expiration=3600000",
+        "scheduler.expiry.engine=off",
+        // The tests run the relay themselves
+        "push.outbox.poll-interval=3600000"
+})
+class NotificationOutboxRelayTest {
+
+    @Autowired
+    private NotificationService notificationService;
+
+    @Autowired
+    private NotificationOutboxRelay notificationOutboxRelay;
+
+    @Autowired
+    private NotificationOutboxRepository notificationOutboxRepository;
+
+    @Autowired
+    private NotificationRepository notificationRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        cleanUp();
+        User outboxUser = new User("outbox_user", "outbox@example.com", "Password123!");
+        outboxUser.addDeviceToken(new UserDeviceToken(outboxUser, "outbox-phone", "Phone"));
+        outboxUser.addDeviceToken(new UserDeviceToken(outboxUser, "outbox-tablet", "Tablet"));
+        user = userRepository.save(outboxUser);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        jdbcTemplate.update("DELETE FROM resqfood.notification_outbox");
+        notificationRepository.deleteAll();
+        userRepository.findByUsername("outbox_user").ifPresent(userRepository::delete);
+    }
+
+    @Test
+    void committedNotification_isRelayedAndMarkedDelivered() throws InterruptedException {
+        // Given
+        notificationService.createAndSendNotification(user, "Inventory Update", "Item 'Milk' successfully saved!", null, PushPriority.LOW);
+        assertThat(pendingRows()).isEqualTo(2);
+
+        // When
+        notificationOutboxRelay.relay();
+
+        // Then
+        for (int i = 0; i < 50 && pendingRows() > 0; i++) {
+            Thread.sleep(100);
+        }
+        assertThat(pendingRows()).isZero();
+    }
+
+    @Test
+    void rolledBackNotification_leavesNothingToPush() {
+        // When
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            notificationService.createAndSendNotification(user, "Inventory Update", "Rolled back", null, PushPriority.LOW);
+            status.setRollbackOnly();
+        });
+
+        // Then
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM resqfood.notification_outbox", Long.class)).isZero();
+    }
+
+    @Test
+    void claim_handsOutEveryRowOnce_untilItsClaimRunsOut() {
+        // Given
+        notificationService.createAndSendNotification(user, "Inventory Update", "Claimed", null, PushPriority.LOW);
+        LocalDateTime now = LocalDateTime.now(ZoneOffset.UTC);
+
+        // When
+        List<PushMessage> first = notificationOutboxRepository.claim(PushPriority.LOW, 1, 5, now, now.plusMinutes(2));
+        List<PushMessage> second = notificationOutboxRepository.claim(PushPriority.LOW, 10, 5, now, now.plusMinutes(2));
+        List<PushMessage> none = notificationOutboxRepository.claim(PushPriority.LOW, 10, 5, now, now.plusMinutes(2));
+        List<PushMessage> expired = notificationOutboxRepository.claim(PushPriority.LOW, 10, 5, now.plusMinutes(3), now.plusMinutes(5));
+
+        // Then
+        assertThat(first).hasSize(1);
+        assertThat(second).hasSize(1).doesNotContainAnyElementsOf(first);
+        assertThat(none).isEmpty();
+        assertThat(expired).extracting(PushMessage::token).containsExactlyInAnyOrder("outbox-phone", "outbox-tablet");
+    }
+
+    @Test
+    void claim_onlyHandsOutRowsOfTheRequestedPriority() {
+        // Given
+        notificationService.createAndSendNotification(user, "Inventory Update", "Item 'Milk' successfully saved!", null, PushPriority.LOW);
+        notificationService.createAndSendNotification(user, "Expiry Alert", "Your Milk expires today!", null, PushPriority.HIGH);
+        LocalDateTime now = LocalDateTime.now(ZoneOffset.UTC);
+
+        // When
+        List<PushMessage> high = notificationOutboxRepository.claim(PushPriority.HIGH, 10, 5, now, now.plusMinutes(2));
+
+        // Then
+        assertThat(high).hasSize(2)
+                .allMatch(push -> push.priority() == PushPriority.HIGH)
+                .extracting(PushMessage::body).containsOnly("Your Milk expires today!");
+    }
+
+    @Test
+    void staleLowPriorityRows_areDroppedInsteadOfSent() {
+        // Given
+        notificationService.createAndSendNotification(user, "Inventory Update", "Item 'Milk' successfully saved!", null, PushPriority.LOW);
+        notificationService.createAndSendNotification(user, "Expiry Alert", "Your Milk expires today!", null, PushPriority.HIGH);
+        // Far enough ahead that claims of relays in other test contexts have run out as well
+        LocalDateTime later = LocalDateTime.now(ZoneOffset.UTC).plusHours(1);
+
+        // When
+        notificationOutboxRepository.discardCreatedBefore(PushPriority.LOW, later, later);
+
+        // Then
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM resqfood.notification_outbox "
+                + "WHERE priority = 'LOW' AND delivered_at IS NULL", Long.class)).isZero();
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM resqfood.notification_outbox "
+                + "WHERE priority = 'HIGH' AND delivered_at = ?", Long.class, later)).isZero();
+    }
+
+    @Test
+    void exhaustedRows_areNoLongerClaimed_andGivenUpOn() {
+        // Given: pushes that were claimed five times and failed every time
+        notificationService.createAndSendNotification(user, "Expiry Alert", "Your Milk expires today!", null, PushPriority.HIGH);
+        jdbcTemplate.update("UPDATE resqfood.notification_outbox SET attempts = 5");
+        LocalDateTime later = LocalDateTime.now(ZoneOffset.UTC).plusHours(1);
+
+        // When
+        List<PushMessage> claimed = notificationOutboxRepository.claim(PushPriority.HIGH, 10, 5, later, later.plusMinutes(2));
+        int exhausted = notificationOutboxRepository.discardExhausted(PushPriority.HIGH, 5, later);
+
+        // Then
+        assertThat(claimed).isEmpty();
+        assertThat(exhausted).isEqualTo(2);
+        assertThat(pendingRows()).isZero();
+    }
+
+    @Test
+    void returnedAttempts_keepTheClaimButDoNotCountTowardsTheMaximum() {
+        // Given: pushes claimed on their last attempt, then dropped by a full dispatch queue
+        notificationService.createAndSendNotification(user, "Expiry Alert", "Your Milk expires today!", null, PushPriority.HIGH);
+        jdbcTemplate.update("UPDATE resqfood.notification_outbox SET attempts = 4");
+        LocalDateTime later = LocalDateTime.now(ZoneOffset.UTC).plusHours(1);
+        List<PushMessage> claimed = notificationOutboxRepository.claim(PushPriority.HIGH, 10, 5, later, later.plusMinutes(2));
+
+        // When
+        notificationOutboxRepository.returnAttempts(claimed.stream().map(PushMessage::outboxId).toList());
+
+        // Then
+        assertThat(notificationOutboxRepository.claim(PushPriority.HIGH, 10, 5, later, later.plusMinutes(2))).isEmpty();
+        assertThat(notificationOutboxRepository.discardExhausted(PushPriority.HIGH, 5, later.plusMinutes(3))).isZero();
+        assertThat(notificationOutboxRepository.claim(PushPriority.HIGH, 10, 5, later.plusMinutes(3), later.plusMinutes(5)))
+                .hasSize(2);
+    }
+
+    private long pendingRows() {
+        return jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM resqfood.notification_outbox WHERE delivered_at IS NULL", Long.class);
+    }
+}
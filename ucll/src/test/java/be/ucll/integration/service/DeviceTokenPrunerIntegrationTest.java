@@ -0,0 +1,91 @@
+package be.ucll.integration.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import be.ucll.model.User;
+import be.ucll.model.UserDeviceToken;
+import be.ucll.repository.UserDeviceTokenRepository;
+import be.ucll.repository.UserRepository;
+import be.ucll.service.DeviceTokenPruner;
+import be.ucll.service.PushResult;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@TestPropertySource(properties = {
+        "jwt.secret=Y8r3mP9wQ2tF6sV1xB7eH4kN0uJ5cR8Z",
+        "jwt.expiration=3600000",
+        "scheduler.expiry.engine=off",
+        "push.token-pruning.max-failures=2"
+})
+class DeviceTokenPrunerIntegrationTest {
+
+    @Autowired
+    private DeviceTokenPruner deviceTokenPruner;
+
+    @Autowired
+    private UserDeviceTokenRepository userDeviceTokenRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @BeforeEach
+    void setUp() {
+        cleanUp();
+        User user = new User("pruning_user", "pruning@example.com", "Password123!");
+        user.addDeviceToken(new UserDeviceToken(user, "pruning-uninstalled", "Old phone"));
+        user.addDeviceToken(new UserDeviceToken(user, "pruning-flaky", "Tablet"));
+        user.addDeviceToken(new UserDeviceToken(user, "pruning-healthy", "Phone"));
+        userRepository.save(user);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        userRepository.findByUsername("pruning_user").ifPresent(userRepository::delete);
+    }
+
+    @Test
+    void prune_removesDeadTokensAndTokensThatKeepFailing() {
+        // When
+        deviceTokenPruner.prune(List.of(
+                PushResult.failed("pruning-uninstalled", "UNREGISTERED"),
+                PushResult.failed("pruning-flaky", "INVALID_ARGUMENT"),
+                PushResult.failed("pruning-healthy", "UNAVAILABLE")));
+
+        // Then
+        assertThat(userDeviceTokenRepository.findByToken("pruning-uninstalled")).isEmpty();
+        assertThat(userDeviceTokenRepository.findByToken("pruning-flaky")).get()
+                .extracting(UserDeviceToken::getFailureCount).isEqualTo(1);
+        assertThat(userDeviceTokenRepository.findByToken("pruning-healthy")).get()
+                .extracting(UserDeviceToken::getFailureCount).isEqualTo(0);
+
+        // When the token fails once more
+        deviceTokenPruner.prune(List.of(PushResult.failed("pruning-flaky", "INVALID_ARGUMENT")));
+
+        // Then
+        assertThat(userDeviceTokenRepository.findByToken("pruning-flaky")).isEmpty();
+    }
+
+    @Test
+    void prune_deliveryResetsTheFailureCount() {
+        // Given
+        deviceTokenPruner.prune(List.of(PushResult.failed("pruning-flaky", "INVALID_ARGUMENT")));
+
+        // When
+        deviceTokenPruner.prune(List.of(PushResult.delivered("pruning-flaky", "msg-1")));
+        deviceTokenPruner.prune(List.of(PushResult.failed("pruning-flaky", "INVALID_ARGUMENT")));
+
+        // Then
+        assertThat(userDeviceTokenRepository.findByToken("pruning-flaky")).get()
+                .extracting(UserDeviceToken::getFailureCount).isEqualTo(1);
+    }
+}
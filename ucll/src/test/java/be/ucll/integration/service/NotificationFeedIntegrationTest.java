@@ -0,0 +1,152 @@
+package be.ucll.integration.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import be.ucll.dto.NotificationCursor;
+import be.ucll.dto.NotificationDTO;
+import be.ucll.model.Notification;
+import be.ucll.model.User;
+import be.ucll.repository.NotificationRepository;
+import be.ucll.repository.UserRepository;
+import be.ucll.service.NotificationService;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@TestPropertySource(properties = {
+        "jwt.secret=Y8r3mP9wQ2tF6sV1xB7eH4kN0uJ5cR8Z",
+        "jwt.expiration=3600000",
+        "scheduler.expiry.engine=off"
+})
+class NotificationFeedIntegrationTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2025, 6, 1, 9, 0);
+
+    @Autowired
+    private NotificationService notificationService;
+
+    @Autowired
+    private NotificationRepository notificationRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        cleanUp();
+        user = userRepository.save(new User("feed_user", "feed@example.com", "Password123!"));
+        User other = userRepository.save(new User("feed_other", "feed-other@example.com", "Password123!"));
+        notificationRepository.save(notification(other, "Someone else's", START.plusHours(1)));
+    }
+
+    @AfterEach
+    void cleanUp() {
+        jdbcTemplate.update("DELETE FROM resqfood.notifications WHERE user_id IN "
+                + "(SELECT id FROM resqfood.users WHERE username IN ('feed_user', 'feed_other'))");
+        userRepository.findByUsername("feed_user").ifPresent(userRepository::delete);
+        userRepository.findByUsername("feed_other").ifPresent(userRepository::delete);
+    }
+
+    private Notification notification(User owner, String title, LocalDateTime timestamp) {
+        Notification notification = new Notification(owner, title, "Message", null);
+        notification.setTimestamp(timestamp);
+        return notification;
+    }
+
+    @Test
+    void pages_walkTheWholeFeedNewestFirst_withoutGapsOrDuplicates() {
+        // Given: two notifications share a timestamp, so only the id tells them apart
+        List<Notification> saved = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            saved.add(notificationRepository.save(notification(user, "Alert " + i, START.plusMinutes(Math.min(i, 5)))));
+        }
+
+        // When
+        List<NotificationDTO> feed = new ArrayList<>();
+        String cursor = null;
+        List<NotificationDTO> page;
+        do {
+            page = notificationService.getUserNotifications("feed_user", cursor != null ? NotificationCursor.decode(cursor) : null, 3);
+            feed.addAll(page);
+            if (!page.isEmpty()) {
+                NotificationDTO last = page.get(page.size() - 1);
+                cursor = new NotificationCursor(last.timestamp(), last.id()).encode();
+            }
+        } while (page.size() == 3);
+
+        // Then
+        assertThat(feed).extracting(NotificationDTO::title)
+                .containsExactly("Alert 6", "Alert 5", "Alert 4", "Alert 3", "Alert 2", "Alert 1", "Alert 0");
+        assertThat(feed).extracting(NotificationDTO::id).doesNotHaveDuplicates();
+    }
+
+    @Test
+    void snoozedNotifications_areLeftOutOfTheFeed() {
+        // Given
+        notificationRepository.save(notification(user, "Delivered", START));
+        Notification snoozed = notification(user, "Snoozed", START.plusMinutes(1));
+        snoozed.setDeliverAt(START.plusDays(1));
+        notificationRepository.save(snoozed);
+
+        // When
+        List<NotificationDTO> feed = notificationService.getUserNotifications("feed_user", null, 10);
+
+        // Then
+        assertThat(feed).extracting(NotificationDTO::title).containsExactly("Delivered");
+    }
+
+    @Test
+    void markAllAsRead_coversEverythingUpToNow_butNotWhatArrivesLater() {
+        // Given
+        for (int i = 0; i < 3; i++) {
+            notificationRepository.save(notification(user, "Alert " + i, START.plusMinutes(i)));
+        }
+
+        // When
+        notificationService.markAllAsRead("feed_user");
+
+        // Then
+        assertThat(notificationService.getUnreadCount("feed_user")).isZero();
+        assertThat(notificationService.getUserNotifications("feed_user", null, 10)).extracting(NotificationDTO::isRead)
+                .containsOnly(true);
+        assertThat(notificationService.getUnreadCount("feed_other")).isEqualTo(1);
+
+        Notification later = notificationRepository.save(notification(user, "Later", START.plusHours(2)));
+        assertThat(notificationService.getUnreadCount("feed_user")).isEqualTo(1);
+        notificationService.markAsRead(later.getId(), "feed_user");
+        assertThat(notificationService.getUnreadCount("feed_user")).isZero();
+    }
+
+    @Test
+    void savingAUserLoadedBeforeMarkAllAsRead_keepsTheNewMark() {
+        // Given: a user loaded by another request, e.g. one that is about to count a rescued item
+        notificationRepository.save(notification(user, "Alert", START));
+        User stale = userRepository.findByUsername("feed_user").orElseThrow();
+
+        // When
+        notificationService.markAllAsRead("feed_user");
+        stale.incrementRescued();
+        userRepository.save(stale);
+
+        // Then
+        assertThat(notificationService.getUnreadCount("feed_user")).isZero();
+        assertThat(userRepository.findByUsername("feed_user").orElseThrow().getItemsRescued()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,81 @@
+package be.ucll.integration.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import be.ucll.model.Item;
+import be.ucll.model.User;
+import be.ucll.model.UserItem;
+import be.ucll.repository.ItemRepository;
+import be.ucll.repository.UserItemRepository;
+import be.ucll.repository.UserRepository;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@TestPropertySource(properties = {
+        "jwt.secret=Y8r3mP9wQ2tF6sV1xB7eH4kN0uJ5cR8Z",
+        "jwt.expiration=3600000",
+        "scheduler.expiry.engine=off"
+})
+class UserItemTimestampIntegrationTest {
+
+    // A node configured for Brussels, an hour or two ahead of the UTC updated_at column
+    private static final Instant NOW = Instant.parse("2030-01-15T08:30:00Z");
+
+    @TestConfiguration
+    static class FixedClockConfig {
+
+        @Bean
+        @Primary
+        Clock fixedClock() {
+            return Clock.fixed(NOW, ZoneId.of("Europe/Brussels"));
+        }
+    }
+
+    @Autowired
+    private UserItemRepository userItemRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @AfterEach
+    void cleanUp() {
+        userItemRepository.deleteAll();
+        userRepository.findByUsername("stamp_user").ifPresent(userRepository::delete);
+        itemRepository.deleteAll();
+    }
+
+    @Test
+    void savedUserItems_takeUpdatedAtFromTheApplicationClockInUtc() {
+        // Given
+        User user = userRepository.save(new User("stamp_user", "stamp@example.com", "Password123!"));
+        Item milk = itemRepository.save(new Item("Milk", Item.Type.DAIRY));
+
+        // When
+        UserItem saved = userItemRepository.save(new UserItem(user, milk, LocalDate.of(2030, 2, 1)));
+
+        // Then
+        LocalDateTime expected = LocalDateTime.ofInstant(NOW, ZoneOffset.UTC);
+        assertThat(saved.getUpdatedAt()).isEqualTo(expected);
+        assertThat(userItemRepository.findById(saved.getId()).orElseThrow().getUpdatedAt()).isEqualTo(expected);
+    }
+}
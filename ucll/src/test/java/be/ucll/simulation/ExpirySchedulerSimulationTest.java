@@ -0,0 +1,183 @@
+package be.ucll.simulation;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import be.ucll.model.UserItem;
+import be.ucll.scheduler.ExpiryReminderProcessor;
+import be.ucll.scheduler.ExpiryScheduler;
+import be.ucll.scheduler.ShardLeaseManager;
+import be.ucll.support.MutableClock;
+import jakarta.persistence.EntityManagerFactory;
+
+// Capacity simulation of the polling expiry scheduler on H2: generates an inventory per size, then
+// replays a number of days with a run every simulated hour and prints one table row per day.
+// Run with: mvn test -Psimulation [-Dsimulation.sizes=10000,100000] [-Dsimulation.days=7]
+@Tag("simulation")
+@SpringBootTest
+@ActiveProfiles("test")
+@TestPropertySource(properties = {
+        "jwt.secret=Y8r3mP9wQ2tF6sV1xB7eH4kN0uJ5cR8Z",
+        "jwt.expiration=3600000",
+        "scheduler.expiry.engine=off",
+        "push.outbox.poll-interval=3600000",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=OFF",
+        "logging.level.be.ucll.scheduler=WARN"
+})
+class ExpirySchedulerSimulationTest {
+
+    private static final Instant START = Instant.parse("2026-03-02T00:00:00Z");
+    private static final int CHUNK_SIZE = 500;
+
+    @TestConfiguration
+    static class SimulationConfig {
+
+        @Bean
+        @Primary
+        MutableClock simulationClock() {
+            return new MutableClock(START, ZoneId.of("UTC"));
+        }
+
+        @Bean
+        static BeanPostProcessor queryCountingDataSource() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    if (bean instanceof DataSource dataSource && !(bean instanceof QueryCountingDataSource)) {
+                        return new QueryCountingDataSource(dataSource);
+                    }
+                    return bean;
+                }
+            };
+        }
+    }
+
+    private record DayReport(int items, int day, long candidates, long notifications, long queries, long wallMillis, long allocatedBytes) {}
+
+    @Autowired
+    private MutableClock clock;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private ExpiryReminderProcessor expiryReminderProcessor;
+
+    @Autowired
+    private ShardLeaseManager shardLeaseManager;
+
+    @AfterEach
+    void cleanUp() {
+        for (String table : List.of("notifications", "users_items", "user_device_tokens", "users", "households", "items", "scheduler_leases")) {
+            jdbcTemplate.update("DELETE FROM resqfood." + table);
+        }
+    }
+
+    @Test
+    void simulateDays() {
+        int[] sizes = Arrays.stream(System.getProperty("simulation.sizes", "10000,100000,1000000").split(","))
+                .mapToInt(size -> Integer.parseInt(size.trim()))
+                .toArray();
+        int days = Integer.getInteger("simulation.days", 7);
+        int runsPerDay = Integer.getInteger("simulation.runs-per-day", 24);
+
+        List<DayReport> reports = new ArrayList<>();
+        for (int size : sizes) {
+            cleanUp();
+            clock.setInstant(START);
+            new SyntheticInventoryGenerator(jdbcTemplate, size).generate(size, START);
+            reports.addAll(simulate(size, days, runsPerDay));
+        }
+
+        System.out.println(format(reports, runsPerDay));
+        assertThat(reports).allMatch(report -> report.queries() > 0);
+        assertThat(reports).anyMatch(report -> report.notifications() > 0);
+    }
+
+    private List<DayReport> simulate(int size, int days, int runsPerDay) {
+        ExpiryScheduler scheduler = new ExpiryScheduler(expiryReminderProcessor, shardLeaseManager, clock, CHUNK_SIZE, Duration.ofMinutes(1), 1);
+        QueryCountingDataSource queryCounter = (QueryCountingDataSource) dataSource;
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().threadId();
+        Duration interval = Duration.ofDays(1).dividedBy(runsPerDay);
+
+        List<DayReport> reports = new ArrayList<>();
+        for (int day = 0; day < days; day++) {
+            long candidates = 0;
+            long queries = 0;
+            long wallNanos = 0;
+            long allocated = 0;
+            long notificationsBefore = countNotifications();
+
+            for (int run = 0; run < runsPerDay; run++) {
+                clock.setInstant(START.plus(Duration.ofDays(day)).plus(interval.multipliedBy(run)));
+
+                long loadsBefore = statistics.getEntityStatistics(UserItem.class.getName()).getLoadCount();
+                long queriesBefore = queryCounter.getQueryCount();
+                long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+                long start = System.nanoTime();
+
+                scheduler.checkExpiries();
+
+                wallNanos += System.nanoTime() - start;
+                allocated += threads.getThreadAllocatedBytes(threadId) - allocatedBefore;
+                queries += queryCounter.getQueryCount() - queriesBefore;
+                candidates += statistics.getEntityStatistics(UserItem.class.getName()).getLoadCount() - loadsBefore;
+            }
+
+            reports.add(new DayReport(size, day + 1, candidates, countNotifications() - notificationsBefore,
+                    queries, Duration.ofNanos(wallNanos).toMillis(), allocated));
+        }
+        return reports;
+    }
+
+    private long countNotifications() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM resqfood.notifications", Long.class);
+    }
+
+    private static String format(List<DayReport> reports, int runsPerDay) {
+        StringBuilder table = new StringBuilder()
+                .append("\nExpiry scheduler simulation (").append(runsPerDay).append(" runs per simulated day, chunk size ")
+                .append(CHUNK_SIZE).append(")\n")
+                .append(String.format("%10s %4s %12s %14s %9s %10s %10s%n",
+                        "items", "day", "candidates", "notifications", "queries", "wall ms", "alloc MB"));
+        for (DayReport report : reports) {
+            table.append(String.format("%10d %4d %12d %14d %9d %10d %10d%n",
+                    report.items(), report.day(), report.candidates(), report.notifications(),
+                    report.queries(), report.wallMillis(), report.allocatedBytes() / (1024 * 1024)));
+        }
+        return table.toString();
+    }
+}
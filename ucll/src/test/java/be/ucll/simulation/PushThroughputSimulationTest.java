@@ -0,0 +1,127 @@
+package be.ucll.simulation;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import be.ucll.scheduler.ExpiryReminderProcessor;
+import be.ucll.scheduler.ExpiryScheduler;
+import be.ucll.scheduler.ShardLeaseManager;
+import be.ucll.service.FakeFcmServer;
+import be.ucll.support.MutableClock;
+
+// Load test of the whole notification path without network access: one expiry scheduler run writes the
+// notifications and their outbox rows, then the relay and dispatcher deliver them to the in-process fake
+// FCM server. Prints the throughput from the scheduler run until the outbox is drained.
+// Run with: mvn test -Psimulation -Dtest=PushThroughputSimulationTest [-Dsimulation.sizes=10000,100000]
+@Tag("simulation")
+@SpringBootTest
+@ActiveProfiles("test")
+@TestPropertySource(properties = {
+        "jwt.secret=Y8r3mP9wQ2tF6sV1xB7eH4kN0uJ5cR8Z",
+        "jwt.expiration=3600000",
+        "scheduler.expiry.engine=off",
+        "push.transport=stub",
+        "push.stub.latency=PT0.05S",
+        "push.stub.latency-jitter=PT0.02S",
+        "push.stub.error-rate=0.01",
+        "push.lanes.high.rate-limit.per-second=1000000",
+        "push.lanes.high.rate-limit.burst=1000",
+        "push.lanes.low.rate-limit.per-second=1000000",
+        "push.lanes.low.rate-limit.burst=1000",
+        "push.outbox.poll-interval=50",
+        "push.outbox.claim-timeout=PT5S",
+        "logging.level.be.ucll=WARN"
+})
+class PushThroughputSimulationTest {
+
+    private static final Instant START = Instant.parse("2026-03-02T09:00:00Z");
+    private static final Duration DRAIN_TIMEOUT = Duration.ofMinutes(10);
+
+    @TestConfiguration
+    static class SimulationConfig {
+
+        @Bean
+        @Primary
+        MutableClock simulationClock() {
+            return new MutableClock(START, ZoneId.of("UTC"));
+        }
+    }
+
+    private record Report(int items, long notifications, long pushes, long requests, long wallMillis) {}
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ExpiryReminderProcessor expiryReminderProcessor;
+
+    @Autowired
+    private ShardLeaseManager shardLeaseManager;
+
+    @Autowired
+    private FakeFcmServer fakeFcmServer;
+
+    @Autowired
+    private MutableClock clock;
+
+    @AfterEach
+    void cleanUp() {
+        for (String table : List.of("notification_outbox", "notifications", "users_items", "user_device_tokens", "users", "households", "items", "scheduler_leases")) {
+            jdbcTemplate.update("DELETE FROM resqfood." + table);
+        }
+    }
+
+    @Test
+    void simulateThroughput() throws InterruptedException {
+        String[] sizes = System.getProperty("simulation.sizes", "10000").split(",");
+
+        StringBuilder table = new StringBuilder("\nPush throughput against the fake FCM server\n")
+                .append(String.format("%10s %14s %10s %10s %10s %12s%n", "items", "notifications", "pushes", "requests", "wall ms", "pushes/s"));
+        for (String size : sizes) {
+            cleanUp();
+            Report report = simulate(Integer.parseInt(size.trim()));
+            table.append(String.format("%10d %14d %10d %10d %10d %12.0f%n", report.items(), report.notifications(),
+                    report.pushes(), report.requests(), report.wallMillis(), report.pushes() * 1000.0 / Math.max(1, report.wallMillis())));
+            assertThat(report.pushes()).isPositive();
+        }
+        System.out.println(table);
+    }
+
+    private Report simulate(int size) throws InterruptedException {
+        clock.setInstant(START);
+        new SyntheticInventoryGenerator(jdbcTemplate, size).generate(size, START);
+        long requestsBefore = fakeFcmServer.getRequestCount();
+        long start = System.nanoTime();
+
+        new ExpiryScheduler(expiryReminderProcessor, shardLeaseManager, clock, 500, Duration.ofMinutes(1), 1).checkExpiries();
+
+        long deadline = System.nanoTime() + DRAIN_TIMEOUT.toNanos();
+        while (count("notification_outbox WHERE delivered_at IS NULL") > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+        }
+        long wallMillis = Duration.ofNanos(System.nanoTime() - start).toMillis();
+
+        return new Report(size, count("notifications"), count("notification_outbox"),
+                fakeFcmServer.getRequestCount() - requestsBefore, wallMillis);
+    }
+
+    private long count(String from) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM resqfood." + from, Long.class);
+    }
+}
@@ -0,0 +1,161 @@
+package be.ucll.simulation;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import be.ucll.model.Item;
+import be.ucll.model.User;
+import be.ucll.model.UserItem;
+
+// Fills the database with a reproducible inventory: households of a few users, every user with some
+// device tokens and about 20 items, and shelf lives that depend on the kind of product.
+public class SyntheticInventoryGenerator {
+
+    private static final int ITEMS_PER_USER = 20;
+    private static final int BATCH_SIZE = 5_000;
+    // Stay clear of ids handed out by the identity columns
+    private static final long ID_OFFSET = 1_000_000_000L;
+
+    private record Product(String name, Item.Type type, int openedRule, int minShelfLife, int maxShelfLife) {}
+
+    private static final List<Product> PRODUCTS = List.of(
+            new Product("Milk", Item.Type.DAIRY, 3, 5, 12),
+            new Product("Yoghurt", Item.Type.DAIRY, 4, 7, 21),
+            new Product("Cheese", Item.Type.DAIRY, 7, 14, 60),
+            new Product("Bread", Item.Type.GRAIN, 3, 2, 6),
+            new Product("Eggs", Item.Type.PROTEIN, 7, 14, 28),
+            new Product("Chicken", Item.Type.PROTEIN, 2, 1, 4),
+            new Product("Steak", Item.Type.PROTEIN, 2, 2, 5),
+            new Product("Apples", Item.Type.FRUIT, 7, 7, 30),
+            new Product("Bananas", Item.Type.FRUIT, 3, 3, 8),
+            new Product("Lettuce", Item.Type.VEGETABLE, 2, 3, 7),
+            new Product("Carrots", Item.Type.VEGETABLE, 7, 14, 30),
+            new Product("Soup", Item.Type.READY_MEAL, 3, 2, 5),
+            new Product("Orange juice", Item.Type.BEVERAGE, 5, 10, 60),
+            new Product("Frozen peas", Item.Type.FROZEN, 30, 90, 365),
+            new Product("Tuna", Item.Type.CANNED, 2, 365, 1095),
+            new Product("Pasta", Item.Type.PANTRY, 30, 180, 720),
+            new Product("Chocolate", Item.Type.SWEETS, 30, 90, 365),
+            new Product("Flour", Item.Type.BAKING, 60, 180, 365),
+            new Product("Pepper", Item.Type.SPICE, 90, 365, 1095));
+
+    // Weighted by where we expect users to be, null falls back to the server zone
+    private static final List<String> TIME_ZONES = List.of(
+            "Europe/Brussels", "Europe/Brussels", "Europe/Brussels", "Europe/Brussels", "Europe/Brussels",
+            "Europe/Brussels", "Europe/Brussels", "Europe/Brussels", "Europe/Brussels",
+            "Europe/London", "Europe/London", "Europe/London",
+            "America/New_York", "America/New_York", "America/New_York",
+            "America/Los_Angeles", "Asia/Tokyo", "Asia/Tokyo", "Australia/Sydney");
+
+    public record Inventory(int households, int users, int deviceTokens, int userItems) {}
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Random random;
+
+    public SyntheticInventoryGenerator(JdbcTemplate jdbcTemplate, long seed) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.random = new Random(seed);
+    }
+
+    public Inventory generate(int userItemCount, Instant now) {
+        int userCount = Math.max(1, userItemCount / ITEMS_PER_USER);
+        int householdCount = Math.max(1, userCount * 2 / 5);
+
+        List<Object[]> households = new ArrayList<>();
+        for (int i = 0; i < householdCount; i++) {
+            households.add(new Object[] { ID_OFFSET + i, "S" + Integer.toString(i, 36) });
+        }
+        insert("INSERT INTO resqfood.households (id, invite_code) VALUES (?, ?)", households);
+
+        List<Object[]> productRows = new ArrayList<>();
+        List<Item> items = new ArrayList<>();
+        for (int i = 0; i < PRODUCTS.size(); i++) {
+            Product product = PRODUCTS.get(i);
+            productRows.add(new Object[] { ID_OFFSET + i, product.name(), product.type().name(), product.openedRule() });
+            Item item = new Item(product.name(), product.type());
+            item.setOpenedRule(product.openedRule());
+            items.add(item);
+        }
+        insert("INSERT INTO resqfood.items (id, name, type, opened_rule) VALUES (?, ?, ?, ?)", productRows);
+
+        List<User> users = new ArrayList<>();
+        List<Object[]> userRows = new ArrayList<>();
+        List<Object[]> tokenRows = new ArrayList<>();
+        LocalDateTime createdAt = LocalDateTime.ofInstant(now, ZoneOffset.UTC);
+        for (int i = 0; i < userCount; i++) {
+            long userId = ID_OFFSET + i;
+            User user = new User("sim_user_" + i, "sim" + i + "@example.com", "Password123!");
+            ReflectionTestUtils.setField(user, "id", userId);
+            if (random.nextInt(20) > 0) {
+                user.setTimeZone(TIME_ZONES.get(random.nextInt(TIME_ZONES.size())));
+            }
+            users.add(user);
+
+            // One in five users has no household
+            Long householdId = random.nextInt(5) == 0 ? null : ID_OFFSET + random.nextInt(householdCount);
+            userRows.add(new Object[] { userId, user.getUsername(), user.getEmail(), user.getPassword(), householdId, user.getTimeZone(), createdAt });
+
+            for (int t = 0; t < deviceTokenCount(); t++) {
+                tokenRows.add(new Object[] { userId, "sim-token-" + i + "-" + t, "Simulated phone " + t });
+            }
+        }
+        insert("INSERT INTO resqfood.users (id, username, email, password, household_id, items_rescued, time_zone, created_at) VALUES (?, ?, ?, ?, ?, 0, ?, ?)", userRows);
+        insert("INSERT INTO resqfood.user_device_tokens (user_id, token, device_name) VALUES (?, ?, ?)", tokenRows);
+
+        List<Object[]> userItemRows = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < userItemCount; i++) {
+            User user = users.get(i % userCount);
+            int productIndex = random.nextInt(PRODUCTS.size());
+            Product product = PRODUCTS.get(productIndex);
+            LocalDate today = LocalDate.ofInstant(now, user.getZoneId());
+
+            // Items were bought at different times, so anything between a few days past and a full shelf life is left
+            LocalDate expirationDate = today.plusDays(random.nextInt(-3, product.maxShelfLife() + 1));
+            UserItem userItem = new UserItem(user, items.get(productIndex), expirationDate);
+            if (random.nextInt(4) == 0) {
+                LocalDate openedDate = today.minusDays(random.nextInt(5));
+                userItem.setOpenedDate(openedDate.isAfter(expirationDate) ? expirationDate : openedDate);
+            }
+            userItem.scheduleNextReminder(today);
+
+            userItemRows.add(new Object[] { ID_OFFSET + i, user.getId(), ID_OFFSET + productIndex, expirationDate,
+                    userItem.getOpenedDate(), userItem.getNextReminderOn(), userItem.getNextReminderAt(), createdAt });
+            if (userItemRows.size() == BATCH_SIZE) {
+                insertUserItems(userItemRows);
+                userItemRows.clear();
+            }
+        }
+        insertUserItems(userItemRows);
+
+        return new Inventory(householdCount, userCount, tokenRows.size(), userItemCount);
+    }
+
+    // 10% none, 60% one, 25% two, 5% three devices
+    private int deviceTokenCount() {
+        int roll = random.nextInt(100);
+        if (roll < 10) return 0;
+        if (roll < 70) return 1;
+        if (roll < 95) return 2;
+        return 3;
+    }
+
+    private void insertUserItems(List<Object[]> rows) {
+        insert("INSERT INTO resqfood.users_items (id, user_id, item_id, expiration_date, opened_date, next_reminder_on, next_reminder_at, updated_at) "
+                + "VALUES (?, ?, ?, ?, ?, ?, ?, ?)", rows);
+    }
+
+    private void insert(String sql, List<Object[]> rows) {
+        for (int from = 0; from < rows.size(); from += BATCH_SIZE) {
+            jdbcTemplate.batchUpdate(sql, rows.subList(from, Math.min(from + BATCH_SIZE, rows.size())));
+        }
+    }
+}
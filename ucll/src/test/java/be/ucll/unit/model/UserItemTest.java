@@ -5,6 +5,7 @@ import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.Mockito.when;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.Set;
 
 import org.junit.jupiter.api.BeforeEach;
@@ -12,6 +13,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import be.ucll.exception.DomainException;
 import be.ucll.model.Item;
@@ -31,6 +33,7 @@ class UserItemTest {
     private final LocalDate pastDate = LocalDate.now().minusDays(5);
     private final LocalDate today = LocalDate.now();
     private final String validDescription = "Leftover pasta";
+    private final User owner = new User("owner", "owner@example.com", "Password123!");
 
     private Validator validator;
 
@@ -178,4 +181,86 @@ class UserItemTest {
                 .anyMatch(v -> v.getMessage().contains("Description cannot be longer than 128 characters."));
     }
 
-}
\ No newline at end of file
+
+    @Test
+    void scheduleNextReminder_nextReminderDay() {
+        // Given
+        UserItem userItem = new UserItem(owner, mockItem, today.plusDays(5));
+
+        // When
+        userItem.scheduleNextReminder(today);
+
+        // Then
+        assertThat(userItem.getNextReminderOn()).isEqualTo(today.plusDays(2));
+    }
+
+    @Test
+    void scheduleNextReminder_openedRuleOverridesExpiration() {
+        // Given
+        UserItem userItem = new UserItem(owner, mockItem, today.plusDays(30), today, 4);
+
+        // When
+        userItem.scheduleNextReminder(today);
+
+        // Then
+        assertThat(userItem.getNextReminderOn()).isEqualTo(today.plusDays(1));
+    }
+
+    @Test
+    void scheduleNextReminder_notifiedToday_movesToTomorrow() {
+        // Given
+        UserItem userItem = new UserItem(owner, mockItem, today.minusDays(2));
+        userItem.setLastNotifiedAt(LocalDateTime.now());
+
+        // When
+        userItem.scheduleNextReminder(today);
+
+        // Then
+        assertThat(userItem.getNextReminderOn()).isEqualTo(today.plusDays(1));
+    }
+
+    @Test
+    void scheduleNextReminder_expiresToday() {
+        // Given
+        UserItem userItem = new UserItem(owner, mockItem, today);
+
+        // When
+        userItem.scheduleNextReminder(today);
+
+        // Then
+        assertThat(userItem.getNextReminderOn()).isEqualTo(today);
+    }
+
+    @Test
+    void scheduleNextReminder_deliversInTheMorningOfTheUsersTimeZone() {
+        // Given
+        owner.setTimeZone("America/New_York");
+        LocalDate january = LocalDate.of(2027, 1, 10);
+        UserItem userItem = new UserItem(owner, mockItem, january.plusDays(3));
+
+        // When
+        userItem.scheduleNextReminder(january);
+
+        // Then: 09:00 in New York (UTC-5) is 14:00 UTC
+        assertThat(userItem.getNextReminderOn()).isEqualTo(january);
+        assertThat(userItem.getNextReminderAt()).isEqualTo(LocalDateTime.of(2027, 1, 10, 14, 0));
+    }
+
+    @Test
+    void scheduleNextReminder_spreadsUsersOverTheDeliveryWindow() {
+        // Given
+        owner.setTimeZone("UTC");
+        ReflectionTestUtils.setField(owner, "id", 42L);
+        LocalDate january = LocalDate.of(2027, 1, 10);
+        UserItem userItem = new UserItem(owner, mockItem, january.plusDays(3));
+
+        // When
+        userItem.scheduleNextReminder(january);
+
+        // Then
+        LocalDateTime windowStart = january.atTime(UserItem.REMINDER_WINDOW_START);
+        assertThat(userItem.getNextReminderAt())
+                .isAfter(windowStart)
+                .isBefore(windowStart.plus(UserItem.REMINDER_WINDOW));
+    }
+}
@@ -8,9 +8,11 @@ import org.junit.jupiter.params.provider.ValueSource;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import be.ucll.exception.DomainException;
 import be.ucll.model.Household;
 import be.ucll.model.Item;
 import be.ucll.model.User;
@@ -22,6 +24,7 @@ import jakarta.validation.Validator;
 import jakarta.validation.ValidatorFactory;
 
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.Set;
 
 @ExtendWith(MockitoExtension.class)
@@ -263,4 +266,23 @@ class UserTest {
 
         assertThat(user.getHousehold()).isEqualTo(household);
     }
+
+    @Test
+    void setTimeZone_ShouldAcceptIanaZoneIds() {
+        User user = new User(validUsername, validEmail, validPassword);
+
+        user.setTimeZone("Asia/Tokyo");
+
+        assertThat(user.getZoneId()).isEqualTo(ZoneId.of("Asia/Tokyo"));
+    }
+
+    @Test
+    void setTimeZone_ShouldRejectUnknownZones() {
+        User user = new User(validUsername, validEmail, validPassword);
+
+        assertThatThrownBy(() -> user.setTimeZone("Mars/Olympus_Mons"))
+                .isInstanceOf(DomainException.class)
+                .hasMessage("Unknown time zone: Mars/Olympus_Mons");
+        assertThat(user.getZoneId()).isEqualTo(ZoneId.systemDefault());
+    }
 }
@@ -0,0 +1,126 @@
+package be.ucll.unit.scheduler;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+
+import be.ucll.dto.DeferredDeliveryDTO;
+import be.ucll.repository.NotificationRepository;
+import be.ucll.scheduler.DeferredNotificationDispatcher;
+import be.ucll.scheduler.NotificationDeferredEvent;
+import be.ucll.service.NotificationService;
+import be.ucll.support.MutableClock;
+
+@ExtendWith(MockitoExtension.class)
+class DeferredNotificationDispatcherTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2025, 6, 2, 6, 55);
+
+    private final MutableClock clock = new MutableClock(NOW.toInstant(ZoneOffset.UTC), ZoneOffset.UTC);
+
+    @Mock
+    private NotificationRepository notificationRepository;
+
+    @Mock
+    private NotificationService notificationService;
+
+    private DeferredNotificationDispatcher dispatcher;
+
+    @BeforeEach
+    void setUp() {
+        dispatcher = new DeferredNotificationDispatcher(notificationRepository, notificationService, clock,
+                Duration.ofMinutes(10), 60000, 500);
+    }
+
+    @Test
+    void refill_queuesWhatIsDueWithinTheHorizon_andDeliversItOnceDue() {
+        // Given: the rows read back after a restart
+        LocalDateTime sevenOClock = LocalDateTime.of(2025, 6, 2, 7, 0);
+        DeferredDeliveryDTO overdue = new DeferredDeliveryDTO(1L, NOW.minusHours(3));
+        DeferredDeliveryDTO snoozed = new DeferredDeliveryDTO(2L, sevenOClock);
+        when(notificationRepository.findDeferredDeliveriesAfter(0L, NOW.plusMinutes(10), Limit.of(500)))
+                .thenReturn(List.of(overdue, snoozed));
+        when(notificationService.deliverDeferred(anyList())).thenAnswer(invocation -> invocation.getArgument(0, List.class).size());
+
+        // When
+        dispatcher.refill();
+
+        // Then
+        assertThat(dispatcher.size()).isEqualTo(2);
+        assertThat(dispatcher.deliverDue()).isEqualTo(1);
+        verify(notificationService).deliverDeferred(List.of(overdue));
+
+        clock.setInstant(Instant.parse("2025-06-02T07:00:00Z"));
+        assertThat(dispatcher.deliverDue()).isEqualTo(1);
+        verify(notificationService).deliverDeferred(List.of(snoozed));
+        assertThat(dispatcher.size()).isZero();
+    }
+
+    @Test
+    void refill_doesNotQueueTheSameDeliveryTwice() {
+        // Given
+        DeferredDeliveryDTO snoozed = new DeferredDeliveryDTO(2L, NOW.plusMinutes(5));
+        when(notificationRepository.findDeferredDeliveriesAfter(eq(0L), any(), any())).thenReturn(List.of(snoozed));
+
+        // When
+        dispatcher.refill();
+        dispatcher.refill();
+        dispatcher.onNotificationDeferred(new NotificationDeferredEvent(2L, NOW.plusMinutes(5)));
+
+        // Then
+        assertThat(dispatcher.size()).isEqualTo(1);
+    }
+
+    @Test
+    void onNotificationDeferred_leavesDeliveriesBeyondTheHorizonToTheDatabase() {
+        // When
+        dispatcher.onNotificationDeferred(new NotificationDeferredEvent(3L, NOW.plusMinutes(5)));
+        dispatcher.onNotificationDeferred(new NotificationDeferredEvent(4L, NOW.plusHours(12)));
+
+        // Then
+        assertThat(dispatcher.size()).isEqualTo(1);
+        assertThat(dispatcher.deliverDue()).isZero();
+        verify(notificationService, never()).deliverDeferred(anyList());
+    }
+
+    @Test
+    void deliverDue_whenSendingFails_queuesTheDeliveryAgainOnTheNextRefill() {
+        // Given
+        DeferredDeliveryDTO due = new DeferredDeliveryDTO(5L, NOW);
+        when(notificationRepository.findDeferredDeliveriesAfter(eq(0L), any(), any())).thenReturn(List.of(due));
+        when(notificationService.deliverDeferred(List.of(due))).thenThrow(new IllegalStateException("database down"));
+        dispatcher.refill();
+
+        // When
+        assertThat(dispatcher.deliverDue()).isZero();
+        dispatcher.refill();
+
+        // Then
+        assertThat(dispatcher.size()).isEqualTo(1);
+    }
+
+    @Test
+    void constructor_horizonShorterThanTheRefillInterval_isRejected() {
+        assertThatThrownBy(() -> new DeferredNotificationDispatcher(notificationRepository, notificationService, clock,
+                Duration.ofSeconds(30), 60000, 500))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
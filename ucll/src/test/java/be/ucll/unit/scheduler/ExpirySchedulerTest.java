@@ -1,31 +1,55 @@
 package be.ucll.unit.scheduler;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
 
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.util.ReflectionTestUtils;
 
+import be.ucll.dto.ReminderScheduleDTO;
 import be.ucll.model.Item;
+import be.ucll.model.LongListConverter;
+import be.ucll.model.Notification;
+import be.ucll.model.SchedulerLease;
 import be.ucll.model.User;
 import be.ucll.model.UserDeviceToken;
 import be.ucll.model.UserItem;
+import be.ucll.repository.UserItemBatchRepository;
 import be.ucll.repository.UserItemRepository;
+import be.ucll.repository.UserRepository;
+import be.ucll.scheduler.ExpiryReminderProcessor;
 import be.ucll.scheduler.ExpiryScheduler;
+import be.ucll.scheduler.ReminderDelivery;
+import be.ucll.scheduler.Shard;
+import be.ucll.scheduler.ShardLeaseManager;
 import be.ucll.service.NotificationService;
 import be.ucll.service.PushNotificationService;
+import be.ucll.service.PushPriority;
 
 @ExtendWith(MockitoExtension.class)
 class ExpirySchedulerTest {
@@ -33,15 +57,38 @@ class ExpirySchedulerTest {
     @Mock
     private UserItemRepository userItemRepository;
 
+    @Mock
+    private UserItemBatchRepository userItemBatchRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
     @Mock
     private PushNotificationService pushNotificationService;
 
     @Mock
     private NotificationService notificationService;
 
-    @InjectMocks
+    @Mock
+    private ShardLeaseManager shardLeaseManager;
+
     private ExpiryScheduler expiryScheduler;
 
+    @BeforeEach
+    void setUp() {
+        expiryScheduler = scheduler(ReminderDelivery.PER_ITEM, Clock.systemDefaultZone());
+
+        Shard onlyShard = new Shard(0, 1);
+        // Not used by the tests that call the processor directly
+        lenient().when(shardLeaseManager.shards()).thenReturn(List.of(onlyShard));
+        lenient().when(shardLeaseManager.tryAcquire(onlyShard)).thenReturn(true);
+    }
+
+    private ExpiryScheduler scheduler(ReminderDelivery delivery, Clock clock) {
+        ExpiryReminderProcessor processor = new ExpiryReminderProcessor(userItemRepository, userItemBatchRepository, userRepository, notificationService, delivery);
+        return new ExpiryScheduler(processor, shardLeaseManager, clock, 2, Duration.ofMinutes(1), 1);
+    }
+
     // Helper method to create linked USerItem
     private UserItem createTestItem(String itemName, LocalDate expirationDate) {
         User user = new User("testUser", "test@example.com", "Pass123!");
@@ -53,24 +100,28 @@ class ExpirySchedulerTest {
         return new UserItem(user, item, expirationDate);
     }
 
+    private void verifyExpiryAlert(User user, String message, Long relatedItemId) {
+        verify(notificationService).createAndSendNotifications(argThat(notifications -> notifications.stream()
+                .anyMatch(n -> n.getUser() == user
+                        && n.getTitle().equals("Expiry Alert")
+                        && n.getMessage().contains(message)
+                        && Objects.equals(n.getRelatedItemId(), relatedItemId))), eq(PushPriority.HIGH));
+    }
+
     @Test
     void checkExpiries_expiresToday() {
         // Given
         UserItem item = createTestItem("Banana", LocalDate.now());
         User user = item.getUser();
-        when(userItemRepository.findPotentialExpiries(any())).thenReturn(List.of(item));
+        when(userItemRepository.findDueRemindersAfter(any(), any(), any(), anyInt(), anyInt(), any())).thenReturn(List.of(item));
 
         // When
         expiryScheduler.checkExpiries();
 
         // Then
-        verify(notificationService).createAndSendNotification(
-            eq(user), 
-            eq("Expiry Alert"),
-            contains("Your Banana expires today!"), 
-            eq(item.getId())
-        );
+        verifyExpiryAlert(user, "Your Banana expires today!", item.getId());
         assertThat(item.getLastNotifiedAt()).isNotNull();
+        assertThat(item.getNextReminderOn()).isEqualTo(LocalDate.now().plusDays(1));
     }
 
     @Test
@@ -78,32 +129,29 @@ class ExpirySchedulerTest {
         // Given
         UserItem item = createTestItem("Milk", LocalDate.now().plusDays(3));
         User user = item.getUser();
-        when(userItemRepository.findPotentialExpiries(any())).thenReturn(List.of(item));
+        when(userItemRepository.findDueRemindersAfter(any(), any(), any(), anyInt(), anyInt(), any())).thenReturn(List.of(item));
 
         // When
         expiryScheduler.checkExpiries();
 
         // Then
-        verify(notificationService).createAndSendNotification(
-            eq(user), 
-            eq("Expiry Alert"),
-            contains("your Milk expires in 3 days!"), 
-            eq(item.getId())
-        );
+        verifyExpiryAlert(user, "your Milk expires in 3 days!", item.getId());
     }
 
     @Test
     void checkExpiries_skipNonReminderDay() {
         // Given
         UserItem item = createTestItem("Cheese", LocalDate.now().plusDays(5));
-        when(userItemRepository.findPotentialExpiries(any())).thenReturn(List.of(item));
+        when(userItemRepository.findDueRemindersAfter(any(), any(), any(), anyInt(), anyInt(), any())).thenReturn(List.of(item));
 
         // When
         expiryScheduler.checkExpiries();
 
         // Then
-        verify(pushNotificationService, never()).sendToDevice(any(), any());
+        verify(pushNotificationService, never()).sendAll(any());
         assertThat(item.getLastNotifiedAt()).isNull();
+        assertThat(item.getNextReminderOn()).isEqualTo(LocalDate.now().plusDays(2));
+        verify(userItemBatchRepository).updateReminders(List.of(item));
     }
 
     @Test
@@ -112,13 +160,13 @@ class ExpirySchedulerTest {
         UserItem item = createTestItem("Yoghurt", LocalDate.now());
         item.setLastNotifiedAt(LocalDateTime.now().minusHours(1));
 
-        when(userItemRepository.findPotentialExpiries(any())).thenReturn(List.of(item));
+        when(userItemRepository.findDueRemindersAfter(any(), any(), any(), anyInt(), anyInt(), any())).thenReturn(List.of(item));
 
         // When
         expiryScheduler.checkExpiries();
 
         // Then
-        verify(pushNotificationService, never()).sendToDevice(any(), any());
+        verify(pushNotificationService, never()).sendAll(any());
     }
 
     @Test
@@ -129,18 +177,13 @@ class ExpirySchedulerTest {
         item.setOpenedDate(LocalDate.now());
         item.setOpenedRule(3);
 
-        when(userItemRepository.findPotentialExpiries(any())).thenReturn(List.of(item));
+        when(userItemRepository.findDueRemindersAfter(any(), any(), any(), anyInt(), anyInt(), any())).thenReturn(List.of(item));
 
         // When
         expiryScheduler.checkExpiries();
 
         // Then
-        verify(notificationService).createAndSendNotification(
-            eq(user), 
-            eq("Expiry Alert"),
-            contains("your Orange Juice expires in 3 days!"), 
-            eq(item.getId())
-        );
+        verifyExpiryAlert(user, "your Orange Juice expires in 3 days!", item.getId());
     }
 
     @Test
@@ -148,18 +191,13 @@ class ExpirySchedulerTest {
         // Given
         UserItem item = createTestItem("Bread", LocalDate.now().minusDays(1));
         User user = item.getUser();
-        when(userItemRepository.findPotentialExpiries(any())).thenReturn(List.of(item));
+        when(userItemRepository.findDueRemindersAfter(any(), any(), any(), anyInt(), anyInt(), any())).thenReturn(List.of(item));
 
         // When
         expiryScheduler.checkExpiries();
 
         // Then
-        verify(notificationService).createAndSendNotification(
-            eq(user), 
-            eq("Expiry Alert"),
-            contains("Your Bread has expired!"), 
-            eq(item.getId())
-        );
+        verifyExpiryAlert(user, "Your Bread has expired!", item.getId());
     }
 
     @Test
@@ -168,14 +206,267 @@ class ExpirySchedulerTest {
         UserItem item = createTestItem("Banana", LocalDate.now());
         item.getUser().getDeviceTokens().clear();
 
-        when(userItemRepository.findPotentialExpiries(any())).thenReturn(List.of(item));
+        when(userItemRepository.findDueRemindersAfter(any(), any(), any(), anyInt(), anyInt(), any())).thenReturn(List.of(item));
 
         // When
         expiryScheduler.checkExpiries();
 
         // Then
-        verify(pushNotificationService, never()).sendToDevice(any(), any());
+        verify(pushNotificationService, never()).sendAll(any());
         // getLastNotified should not be null -> would cause infinite loops
         assertThat(item.getLastNotifiedAt()).isNotNull();
     }
+
+    @Test
+    void checkExpiries_walksKeysetPages() {
+        // Given
+        UserItem first = createTestItem("Apple", LocalDate.now());
+        first.setId(1L);
+        UserItem second = createTestItem("Pear", LocalDate.now());
+        second.setId(2L);
+        UserItem third = createTestItem("Kiwi", LocalDate.now());
+        third.setId(3L);
+
+        when(userItemRepository.findDueRemindersAfter(eq(0L), any(), any(), anyInt(), anyInt(), any())).thenReturn(List.of(first, second));
+        when(userItemRepository.findDueRemindersAfter(eq(2L), any(), any(), anyInt(), anyInt(), any())).thenReturn(List.of(third));
+
+        // When
+        expiryScheduler.checkExpiries();
+
+        // Then
+        verify(userItemRepository).findDueRemindersAfter(eq(0L), any(), any(), eq(0), eq(1), eq(Limit.of(2)));
+        verify(userItemRepository).findDueRemindersAfter(eq(2L), any(), any(), eq(0), eq(1), eq(Limit.of(2)));
+        assertThat(third.getLastNotifiedAt()).isNotNull();
+
+        // One batched update per chunk instead of one dirty-checked update per item
+        verify(userItemBatchRepository).updateReminders(List.of(first, second));
+        verify(userItemBatchRepository).updateReminders(List.of(third));
+    }
+
+    @Test
+    void checkExpiries_failingChunk_keepsEarlierChunks() {
+        // Given
+        UserItem first = createTestItem("Apple", LocalDate.now());
+        first.setId(1L);
+        UserItem second = createTestItem("Pear", LocalDate.now());
+        second.setId(2L);
+
+        when(userItemRepository.findDueRemindersAfter(eq(0L), any(), any(), anyInt(), anyInt(), any())).thenReturn(List.of(first, second));
+        when(userItemRepository.findDueRemindersAfter(eq(2L), any(), any(), anyInt(), anyInt(), any())).thenThrow(new RuntimeException("Connection lost"));
+
+        // When / Then
+        assertThatCode(() -> expiryScheduler.checkExpiries()).doesNotThrowAnyException();
+        assertThat(first.getLastNotifiedAt()).isNotNull();
+        assertThat(second.getLastNotifiedAt()).isNotNull();
+    }
+
+    @Test
+    void checkExpiries_skipsShardLeasedByAnotherNode() {
+        // Given
+        when(shardLeaseManager.tryAcquire(new Shard(0, 1))).thenReturn(false);
+
+        // When
+        expiryScheduler.checkExpiries();
+
+        // Then
+        verify(userItemRepository, never()).findDueRemindersAfter(any(), any(), any(), anyInt(), anyInt(), any());
+        verify(shardLeaseManager, never()).release(any());
+    }
+
+    @Test
+    void checkExpiries_digest_groupsDueItemsPerUser() {
+        // Given
+        expiryScheduler = scheduler(ReminderDelivery.DIGEST, Clock.systemDefaultZone());
+
+        UserItem milk = createTestItem("Milk", LocalDate.now().plusDays(3));
+        milk.setId(1L);
+        User user = milk.getUser();
+        UserItem bread = new UserItem(user, new Item("Bread", Item.Type.GRAIN), LocalDate.now().minusDays(1));
+        bread.setId(2L);
+        UserItem banana = new UserItem(user, new Item("Banana", Item.Type.FRUIT), LocalDate.now());
+        banana.setId(3L);
+
+        when(userItemRepository.findDueReminderUsersAfter(eq(0L), any(), any(), anyInt(), anyInt(), any())).thenReturn(List.of(7L));
+        when(userItemRepository.findDueRemindersForUsers(eq(List.of(7L)), any())).thenReturn(List.of(milk, bread, banana));
+
+        // When
+        expiryScheduler.checkExpiries();
+
+        // Then
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Notification>> captor = ArgumentCaptor.forClass(List.class);
+        verify(notificationService).createAndSendNotifications(captor.capture(), eq(PushPriority.HIGH));
+        assertThat(captor.getValue()).hasSize(1);
+
+        Notification digest = captor.getValue().get(0);
+        assertThat(digest.getUser()).isSameAs(user);
+        assertThat(digest.getTitle()).isEqualTo("Expiry Digest");
+        assertThat(digest.getMessage())
+                .isEqualTo("3 items need your attention: Bread has expired, Banana expires today, Milk expires in 3 days");
+        assertThat(digest.getRelatedItemId()).isNull();
+        assertThat(digest.getRelatedItemIds()).containsExactly(2L, 3L, 1L);
+
+        verify(userItemRepository, never()).findDueRemindersAfter(any(), any(), any(), anyInt(), anyInt(), any());
+        assertThat(milk.getLastNotifiedAt()).isNotNull();
+        assertThat(bread.getLastNotifiedAt()).isNotNull();
+    }
+
+    @Test
+    void checkExpiries_digest_truncatesLongSummaries() {
+        // Given
+        expiryScheduler = scheduler(ReminderDelivery.DIGEST, Clock.systemDefaultZone());
+
+        User user = createTestItem("Placeholder", LocalDate.now()).getUser();
+        List<UserItem> due = new ArrayList<>();
+        for (long i = 1; i <= 30; i++) {
+            UserItem userItem = new UserItem(user, new Item("Leftover soup portion " + i, Item.Type.READY_MEAL), LocalDate.now());
+            userItem.setId(i);
+            due.add(userItem);
+        }
+
+        when(userItemRepository.findDueReminderUsersAfter(eq(0L), any(), any(), anyInt(), anyInt(), any())).thenReturn(List.of(7L));
+        when(userItemRepository.findDueRemindersForUsers(any(), any())).thenReturn(due);
+
+        // When
+        expiryScheduler.checkExpiries();
+
+        // Then
+        verify(notificationService).createAndSendNotifications(argThat(notifications -> notifications.size() == 1
+                && notifications.get(0).getMessage().length() <= 255
+                && notifications.get(0).getMessage().endsWith(" more")
+                && notifications.get(0).getRelatedItemIds().size() == 30), eq(PushPriority.HIGH));
+    }
+
+    @Test
+    void checkExpiries_digest_keepsTheRelatedItemIdsWithinTheColumn() {
+        // Given: 400 due items, whose ids do not all fit related_item_ids
+        expiryScheduler = scheduler(ReminderDelivery.DIGEST, Clock.systemDefaultZone());
+
+        User user = createTestItem("Placeholder", LocalDate.now()).getUser();
+        List<UserItem> due = new ArrayList<>();
+        for (long i = 1; i <= 400; i++) {
+            UserItem userItem = new UserItem(user, new Item("Item " + i, Item.Type.PANTRY), LocalDate.now().plusDays(i % 2));
+            userItem.setId(1_000_000L + i);
+            due.add(userItem);
+        }
+
+        when(userItemRepository.findDueReminderUsersAfter(eq(0L), any(), any(), anyInt(), anyInt(), any())).thenReturn(List.of(7L));
+        when(userItemRepository.findDueRemindersForUsers(any(), any())).thenReturn(due);
+
+        // When
+        expiryScheduler.checkExpiries();
+
+        // Then: the 200 items expiring today come first, every item is still moved on
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Notification>> captor = ArgumentCaptor.forClass(List.class);
+        verify(notificationService).createAndSendNotifications(captor.capture(), eq(PushPriority.HIGH));
+        List<Long> relatedItemIds = captor.getValue().get(0).getRelatedItemIds();
+        assertThat(new LongListConverter().convertToDatabaseColumn(relatedItemIds))
+                .hasSizeLessThanOrEqualTo(Notification.MAX_RELATED_ITEM_IDS_LENGTH);
+        assertThat(relatedItemIds).hasSize(250);
+        assertThat(relatedItemIds.subList(0, 200)).allMatch(id -> id % 2 == 0);
+        assertThat(due).allMatch(userItem -> userItem.getLastNotifiedAt() != null);
+    }
+
+    @Test
+    void checkExpiries_usesTheUsersOwnDate() {
+        // Given: 12:00 UTC is already 02:00 the next day on Kiritimati (UTC+14)
+        Instant noonUtc = LocalDateTime.of(2026, 3, 1, 12, 0).toInstant(ZoneOffset.UTC);
+        expiryScheduler = scheduler(ReminderDelivery.PER_ITEM, Clock.fixed(noonUtc, ZoneOffset.UTC));
+
+        UserItem item = createTestItem("Sushi", LocalDate.of(2026, 3, 2));
+        User user = item.getUser();
+        user.setTimeZone("Pacific/Kiritimati");
+        when(userItemRepository.findDueRemindersAfter(any(), any(), any(), anyInt(), anyInt(), any())).thenReturn(List.of(item));
+
+        // When
+        expiryScheduler.checkExpiries();
+
+        // Then
+        verify(userItemRepository).findDueRemindersAfter(eq(0L), eq(LocalDateTime.of(2026, 3, 1, 12, 0)), any(), anyInt(), anyInt(), any());
+        verifyExpiryAlert(user, "Your Sushi expires today!", item.getId());
+        assertThat(item.getLastNotifiedAt()).isEqualTo(LocalDateTime.of(2026, 3, 2, 2, 0));
+        // The next reminder is tomorrow morning local time: 09:00 on Kiritimati is 19:00 UTC the day before
+        assertThat(item.getNextReminderOn()).isEqualTo(LocalDate.of(2026, 3, 3));
+        assertThat(item.getNextReminderAt()).isEqualTo(LocalDateTime.of(2026, 3, 2, 19, 0));
+    }
+
+    @Test
+    void checkExpiries_sameDay_onlyScansRowsChangedSinceTheWatermark() {
+        // Given
+        Instant noonUtc = LocalDateTime.of(2026, 3, 1, 12, 0).toInstant(ZoneOffset.UTC);
+        expiryScheduler = scheduler(ReminderDelivery.PER_ITEM, Clock.fixed(noonUtc, ZoneOffset.UTC));
+
+        Shard onlyShard = new Shard(0, 1);
+        LocalDateTime watermark = LocalDateTime.of(2026, 3, 1, 11, 0);
+        when(shardLeaseManager.lease(onlyShard))
+                .thenReturn(Optional.of(new SchedulerLease(0, "node", null, watermark, LocalDate.of(2026, 3, 1))));
+
+        // When
+        expiryScheduler.checkExpiries();
+
+        // Then
+        verify(userItemRepository).findDueRemindersAfter(eq(0L), any(), eq(watermark), anyInt(), anyInt(), any());
+        verify(shardLeaseManager).advanceWatermark(onlyShard, LocalDateTime.of(2026, 3, 1, 11, 59), LocalDate.of(2026, 3, 1));
+    }
+
+    @Test
+    void checkExpiries_newDay_runsAFullPass() {
+        // Given
+        Instant noonUtc = LocalDateTime.of(2026, 3, 2, 12, 0).toInstant(ZoneOffset.UTC);
+        expiryScheduler = scheduler(ReminderDelivery.PER_ITEM, Clock.fixed(noonUtc, ZoneOffset.UTC));
+
+        Shard onlyShard = new Shard(0, 1);
+        LocalDateTime watermark = LocalDateTime.of(2026, 3, 1, 23, 0);
+        when(shardLeaseManager.lease(onlyShard))
+                .thenReturn(Optional.of(new SchedulerLease(0, "node", null, watermark, LocalDate.of(2026, 3, 1))));
+
+        // When
+        expiryScheduler.checkExpiries();
+
+        // Then
+        verify(userItemRepository).findDueRemindersAfter(eq(0L), any(), argThat(since -> since.isBefore(watermark)), anyInt(), anyInt(), any());
+        verify(shardLeaseManager).advanceWatermark(onlyShard, LocalDateTime.of(2026, 3, 2, 11, 59), LocalDate.of(2026, 3, 2));
+    }
+
+    @Test
+    void checkExpiries_failingChunk_keepsTheWatermark() {
+        // Given
+        when(userItemRepository.findDueRemindersAfter(any(), any(), any(), anyInt(), anyInt(), any())).thenThrow(new RuntimeException("Connection lost"));
+
+        // When
+        expiryScheduler.checkExpiries();
+
+        // Then
+        verify(shardLeaseManager, never()).advanceWatermark(any(), any(), any());
+    }
+
+    @Test
+    void processItems_dropsDueItemsOfShardsHeldElsewhere() {
+        // Given: the wheel fired an item of each shard, only shard 0 is held here
+        LocalDateTime now = LocalDateTime.now(ZoneOffset.UTC);
+        UserItem held = createTestItem("Milk", LocalDate.now());
+        UserItem elsewhere = createTestItem("Bread", LocalDate.now());
+        UserItem movedOn = createTestItem("Cheese", LocalDate.now().plusDays(5));
+        ReflectionTestUtils.setField(held.getUser(), "id", 2L);
+        ReflectionTestUtils.setField(elsewhere.getUser(), "id", 1L);
+        ReflectionTestUtils.setField(movedOn.getUser(), "id", 3L);
+        held.setId(10L);
+        elsewhere.setId(11L);
+        movedOn.setId(12L);
+        held.setNextReminderAt(now.minusMinutes(1));
+        elsewhere.setNextReminderAt(now.minusMinutes(1));
+        movedOn.setNextReminderAt(now.plusDays(2));
+        when(userItemRepository.findByIdIn(List.of(10L, 11L, 12L))).thenReturn(List.of(held, elsewhere, movedOn));
+        ExpiryReminderProcessor processor = new ExpiryReminderProcessor(userItemRepository, userItemBatchRepository, userRepository,
+                notificationService, ReminderDelivery.PER_ITEM);
+
+        // When
+        List<ReminderScheduleDTO> schedules = processor.processItems(List.of(10L, 11L, 12L), now, List.of(new Shard(0, 2)));
+
+        // Then: the other node fires the bread itself, its new slot comes back through the next sync
+        assertThat(schedules).extracting(ReminderScheduleDTO::userItemId).containsExactly(10L, 12L);
+        assertThat(schedules.get(0).nextReminderAt()).isAfter(now);
+        verify(userItemBatchRepository).updateReminders(List.of(held));
+    }
 }
@@ -0,0 +1,92 @@
+package be.ucll.unit.scheduler;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+
+import be.ucll.dto.ReminderScheduleDTO;
+import be.ucll.repository.UserItemRepository;
+import be.ucll.scheduler.ExpiryReminderProcessor;
+import be.ucll.scheduler.ExpiryWheelScheduler;
+import be.ucll.scheduler.Shard;
+import be.ucll.scheduler.ShardLeaseManager;
+import be.ucll.support.MutableClock;
+
+@ExtendWith(MockitoExtension.class)
+class ExpiryWheelSchedulerTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2025, 6, 2, 9, 0);
+
+    private final MutableClock clock = new MutableClock(NOW.toInstant(ZoneOffset.UTC), ZoneOffset.UTC);
+
+    @Mock
+    private UserItemRepository userItemRepository;
+
+    @Mock
+    private ExpiryReminderProcessor expiryReminderProcessor;
+
+    @Mock
+    private ShardLeaseManager shardLeaseManager;
+
+    private ExpiryWheelScheduler scheduler;
+
+    @BeforeEach
+    void setUp() {
+        scheduler = new ExpiryWheelScheduler(userItemRepository, expiryReminderProcessor, shardLeaseManager, clock, 500,
+                Duration.ofMinutes(1));
+        when(userItemRepository.findReminderSchedulesAfter(0L, Limit.of(500))).thenReturn(List.of());
+        scheduler.rebuild();
+    }
+
+    @Test
+    void sync_schedulesItemsChangedOnAnotherNode() {
+        // Given: an item a web node added after the wheel was built
+        clock.advance(Duration.ofMinutes(5));
+        when(userItemRepository.findReminderSchedulesChangedAfter(NOW.minusMinutes(1), 0L, Limit.of(500)))
+                .thenReturn(List.of(new ReminderScheduleDTO(42L, NOW.plusMinutes(2))));
+        Shard onlyShard = new Shard(0, 1);
+        when(shardLeaseManager.shards()).thenReturn(List.of(onlyShard));
+        when(shardLeaseManager.tryAcquire(onlyShard)).thenReturn(true);
+
+        // When
+        scheduler.sync();
+        scheduler.tick();
+
+        // Then
+        verify(expiryReminderProcessor).processItems(eq(List.of(42L)), eq(NOW.plusMinutes(5)), eq(List.of(onlyShard)));
+    }
+
+    @Test
+    void sync_dropsItemsWhoseReminderWasCleared() {
+        // Given
+        when(userItemRepository.findReminderSchedulesChangedAfter(NOW.minusMinutes(1), 0L, Limit.of(500)))
+                .thenReturn(List.of(new ReminderScheduleDTO(42L, NOW.plusMinutes(2))));
+        scheduler.sync();
+        clock.advance(Duration.ofMinutes(1));
+        when(userItemRepository.findReminderSchedulesChangedAfter(NOW.minusMinutes(1), 0L, Limit.of(500)))
+                .thenReturn(List.of(new ReminderScheduleDTO(42L, null)));
+
+        // When
+        scheduler.sync();
+        clock.advance(Duration.ofMinutes(5));
+        scheduler.tick();
+
+        // Then
+        verify(expiryReminderProcessor, never()).processItems(anyCollection(), any(), any());
+    }
+}
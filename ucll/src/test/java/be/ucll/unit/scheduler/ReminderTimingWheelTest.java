@@ -0,0 +1,86 @@
+package be.ucll.unit.scheduler;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDateTime;
+
+import org.junit.jupiter.api.Test;
+
+import be.ucll.scheduler.ReminderTimingWheel;
+
+class ReminderTimingWheelTest {
+
+    private final LocalDateTime today = LocalDateTime.of(2026, 3, 1, 0, 0);
+
+    @Test
+    void advanceTo_firesOnlyTheBucketThatCameDue() {
+        // Given
+        ReminderTimingWheel wheel = new ReminderTimingWheel(today);
+        wheel.schedule(1L, today);
+        wheel.schedule(2L, today.plusDays(1));
+        wheel.schedule(3L, today.plusDays(3));
+
+        // When / Then
+        assertThat(wheel.advanceTo(today)).containsExactly(1L);
+        assertThat(wheel.advanceTo(today.plusDays(1))).containsExactly(2L);
+        assertThat(wheel.advanceTo(today.plusDays(2))).isEmpty();
+        assertThat(wheel.size()).isEqualTo(1);
+    }
+
+    @Test
+    void advanceTo_cascadesFarFutureEntries() {
+        // Given
+        ReminderTimingWheel wheel = new ReminderTimingWheel(today);
+        wheel.schedule(1L, today.plusDays(100));
+        wheel.schedule(2L, today.plusDays(5000));
+
+        // When / Then
+        assertThat(wheel.advanceTo(today.plusDays(99))).isEmpty();
+        assertThat(wheel.advanceTo(today.plusDays(100))).containsExactly(1L);
+        assertThat(wheel.advanceTo(today.plusDays(4999))).isEmpty();
+        assertThat(wheel.advanceTo(today.plusDays(5000))).containsExactly(2L);
+    }
+
+    @Test
+    void schedule_pastDate_isDueImmediately() {
+        // Given
+        ReminderTimingWheel wheel = new ReminderTimingWheel(today);
+        wheel.advanceTo(today);
+
+        // When
+        wheel.schedule(1L, today.minusDays(2));
+
+        // Then
+        assertThat(wheel.advanceTo(today)).containsExactly(1L);
+    }
+
+    @Test
+    void schedule_reschedulesAndRemoves() {
+        // Given
+        ReminderTimingWheel wheel = new ReminderTimingWheel(today);
+        wheel.schedule(1L, today.plusDays(1));
+        wheel.schedule(2L, today.plusDays(1));
+
+        // When
+        wheel.schedule(1L, today.plusDays(7));
+        wheel.remove(2L);
+
+        // Then
+        assertThat(wheel.advanceTo(today.plusDays(1))).isEmpty();
+        assertThat(wheel.advanceTo(today.plusDays(7))).containsExactly(1L);
+    }
+
+    @Test
+    void advanceTo_firesTodaysEntriesOnlyOnceTheirTimeHasPassed() {
+        // Given
+        ReminderTimingWheel wheel = new ReminderTimingWheel(today);
+        wheel.schedule(1L, today.withHour(9));
+        wheel.schedule(2L, today.withHour(11));
+
+        // When / Then
+        assertThat(wheel.advanceTo(today.withHour(8))).isEmpty();
+        assertThat(wheel.advanceTo(today.withHour(10))).containsExactly(1L);
+        assertThat(wheel.advanceTo(today.withHour(11))).containsExactly(2L);
+        assertThat(wheel.size()).isZero();
+    }
+}
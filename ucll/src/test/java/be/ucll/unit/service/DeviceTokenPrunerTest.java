@@ -0,0 +1,74 @@
+package be.ucll.unit.service;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import be.ucll.repository.UserDeviceTokenRepository;
+import be.ucll.service.DeviceTokenPruner;
+import be.ucll.service.PushResult;
+
+@ExtendWith(MockitoExtension.class)
+class DeviceTokenPrunerTest {
+
+    @Mock
+    private UserDeviceTokenRepository userDeviceTokenRepository;
+
+    private DeviceTokenPruner pruner;
+
+    @BeforeEach
+    void setUp() {
+        pruner = new DeviceTokenPruner(userDeviceTokenRepository, 3);
+    }
+
+    @Test
+    void prune_deletesUnregisteredTokensRightAway() {
+        // When
+        pruner.prune(List.of(PushResult.failed("uninstalled", "UNREGISTERED")));
+
+        // Then
+        verify(userDeviceTokenRepository).deleteByTokenIn(List.of("uninstalled"));
+        verify(userDeviceTokenRepository, never()).incrementFailureCount(any());
+    }
+
+    @Test
+    void prune_countsTokenErrorsAndDeletesTokensOverTheLimit() {
+        // When
+        pruner.prune(List.of(PushResult.failed("malformed", "INVALID_ARGUMENT"), PushResult.failed("foreign", "SENDER_ID_MISMATCH")));
+
+        // Then
+        verify(userDeviceTokenRepository).incrementFailureCount(List.of("malformed", "foreign"));
+        verify(userDeviceTokenRepository).deleteFailing(List.of("malformed", "foreign"), 3);
+        verify(userDeviceTokenRepository, never()).deleteByTokenIn(any());
+    }
+
+    @Test
+    void prune_ignoresTransientErrors() {
+        // When
+        pruner.prune(List.of(PushResult.failed("phone", "UNAVAILABLE"), PushResult.failed("tablet", "QUOTA_EXCEEDED")));
+
+        // Then
+        verify(userDeviceTokenRepository, never()).deleteByTokenIn(any());
+        verify(userDeviceTokenRepository, never()).incrementFailureCount(any());
+        verify(userDeviceTokenRepository, never()).deleteFailing(any(), anyInt());
+        verify(userDeviceTokenRepository, never()).resetFailureCount(any());
+    }
+
+    @Test
+    void prune_resetsTheFailureCountOfDeliveredTokens() {
+        // When
+        pruner.prune(List.of(PushResult.delivered("phone", "msg-1")));
+
+        // Then
+        verify(userDeviceTokenRepository).resetFailureCount(List.of("phone"));
+    }
+}
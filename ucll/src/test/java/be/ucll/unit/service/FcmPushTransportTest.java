@@ -0,0 +1,78 @@
+package be.ucll.unit.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.google.firebase.messaging.BatchResponse;
+import com.google.firebase.messaging.FirebaseMessaging;
+import com.google.firebase.messaging.FirebaseMessagingException;
+import com.google.firebase.messaging.MessagingErrorCode;
+import com.google.firebase.messaging.SendResponse;
+
+import be.ucll.service.FcmPushTransport;
+import be.ucll.service.PushMessage;
+import be.ucll.service.PushResult;
+import be.ucll.service.PushTransportException;
+
+@ExtendWith(MockitoExtension.class)
+class FcmPushTransportTest {
+
+    @Mock
+    private FirebaseMessaging firebaseMessaging;
+
+    @Test
+    void send_mapsFailuresBackToTheirTokens() throws Exception {
+        // Given
+        FirebaseMessagingException unregistered = mock(FirebaseMessagingException.class);
+        when(unregistered.getMessagingErrorCode()).thenReturn(MessagingErrorCode.UNREGISTERED);
+        SendResponse delivered = mock(SendResponse.class);
+        when(delivered.isSuccessful()).thenReturn(true);
+        when(delivered.getMessageId()).thenReturn("msg-1");
+        SendResponse failed = mock(SendResponse.class);
+        when(failed.getException()).thenReturn(unregistered);
+        BatchResponse response = mock(BatchResponse.class);
+        when(response.getResponses()).thenReturn(List.of(delivered, failed));
+        when(firebaseMessaging.sendEach(anyList())).thenReturn(response);
+
+        // When
+        List<PushResult> results = new FcmPushTransport(firebaseMessaging).send(List.of(
+                new PushMessage("phone", "Your milk expires today!"),
+                new PushMessage("old-tablet", "Your milk expires today!")));
+
+        // Then
+        assertThat(results).containsExactly(
+                PushResult.delivered("phone", "msg-1"),
+                PushResult.failed("old-tablet", "UNREGISTERED"));
+    }
+
+    @Test
+    void send_whenTheWholeCallFails_throwsWithTheFcmErrorCode() throws Exception {
+        // Given
+        FirebaseMessagingException unavailable = mock(FirebaseMessagingException.class);
+        when(unavailable.getMessagingErrorCode()).thenReturn(MessagingErrorCode.UNAVAILABLE);
+        when(firebaseMessaging.sendEach(anyList())).thenThrow(unavailable);
+        FcmPushTransport transport = new FcmPushTransport(firebaseMessaging);
+
+        // When / Then
+        assertThatThrownBy(() -> transport.send(List.of(new PushMessage("phone", "Your milk expires today!"))))
+                .isInstanceOf(PushTransportException.class)
+                .extracting(e -> ((PushTransportException) e).getErrorCode())
+                .isEqualTo("UNAVAILABLE");
+    }
+
+    @Test
+    void isAvailable_onlyWithFirebase() {
+        assertThat(new FcmPushTransport(firebaseMessaging).isAvailable()).isTrue();
+        assertThat(new FcmPushTransport(null).isAvailable()).isFalse();
+    }
+}
@@ -0,0 +1,99 @@
+package be.ucll.unit.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import be.ucll.service.FakeFcmServer;
+import be.ucll.service.HttpPushTransport;
+import be.ucll.service.PushMessage;
+import be.ucll.service.PushResult;
+
+class HttpPushTransportTest {
+
+    private FakeFcmServer server;
+
+    @AfterEach
+    void tearDown() {
+        if (server != null) {
+            server.stop();
+        }
+    }
+
+    private HttpPushTransport transport(double errorRate, double unregisteredRate, int quotaPerSecond) throws IOException {
+        server = new FakeFcmServer(0, Duration.ZERO, Duration.ZERO, errorRate, unregisteredRate, quotaPerSecond);
+        server.start();
+        return new HttpPushTransport(server.getUri());
+    }
+
+    private List<PushMessage> pushes(int count) {
+        return IntStream.range(0, count).mapToObj(i -> new PushMessage("token-" + i, "Your milk expires today!")).toList();
+    }
+
+    @Test
+    void send_deliversEveryMessageInOrder() throws IOException {
+        // Given
+        HttpPushTransport transport = transport(0, 0, 0);
+
+        // When
+        List<PushResult> results = transport.send(pushes(20));
+
+        // Then
+        assertThat(results).extracting(PushResult::token).containsExactlyElementsOf(pushes(20).stream().map(PushMessage::token).toList());
+        assertThat(results).allMatch(PushResult::isDelivered);
+        assertThat(results).extracting(PushResult::messageId).allMatch(id -> id.startsWith("projects/resqfood-stub/messages/"));
+        assertThat(server.getDeliveredCount()).isEqualTo(20);
+    }
+
+    @Test
+    void send_mapsSimulatedErrorsToFcmErrorCodes() throws IOException {
+        // Given
+        HttpPushTransport unavailable = transport(1, 0, 0);
+
+        // When
+        List<PushResult> results = unavailable.send(pushes(3));
+
+        // Then
+        assertThat(results).extracting(PushResult::errorCode).containsOnly("UNAVAILABLE");
+        assertThat(results).allMatch(PushResult::isRetryable);
+
+        server.stop();
+        List<PushResult> dead = transport(0, 1, 0).send(pushes(3));
+        assertThat(dead).extracting(PushResult::errorCode).containsOnly("UNREGISTERED");
+        assertThat(dead).allMatch(PushResult::isDeadToken);
+    }
+
+    @Test
+    void send_beyondTheQuota_failsWithQuotaExceeded() throws IOException {
+        // Given
+        HttpPushTransport transport = transport(0, 0, 5);
+
+        // When
+        List<PushResult> results = transport.send(pushes(8));
+
+        // Then: a second boundary may fall inside the call, so at least the 5 allowed are delivered
+        assertThat(results.stream().filter(PushResult::isDelivered).count()).isBetween(5L, 8L);
+        assertThat(results).filteredOn(result -> !result.isDelivered())
+                .allSatisfy(result -> assertThat(result.errorCode()).isEqualTo("QUOTA_EXCEEDED"));
+        assertThat(server.getRequestCount()).isEqualTo(8);
+    }
+
+    @Test
+    void send_whenTheServerIsDown_failsEveryMessageAsUnavailable() throws IOException {
+        // Given
+        HttpPushTransport transport = transport(0, 0, 0);
+        server.stop();
+
+        // When
+        List<PushResult> results = transport.send(pushes(2));
+
+        // Then
+        assertThat(results).extracting(PushResult::errorCode).containsExactly("UNAVAILABLE", "UNAVAILABLE");
+    }
+}
@@ -0,0 +1,194 @@
+package be.ucll.unit.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import be.ucll.model.Notification;
+import be.ucll.model.User;
+import be.ucll.repository.UserRepository;
+import be.ucll.service.InventoryUpdateCoalescer;
+import be.ucll.service.InventoryUpdatedEvent;
+import be.ucll.service.NotificationService;
+import be.ucll.service.PushPriority;
+import be.ucll.support.MutableClock;
+
+@ExtendWith(MockitoExtension.class)
+class InventoryUpdateCoalescerTest {
+
+    private final MutableClock clock = new MutableClock(Instant.parse("2025-06-01T09:00:00Z"), ZoneOffset.UTC);
+
+    @Mock
+    private NotificationService notificationService;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private InventoryUpdateCoalescer coalescer;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        user = mock(User.class);
+        lenient().when(user.getId()).thenReturn(10L);
+        lenient().when(userRepository.findWithDeviceTokensByIdIn(List.of(10L))).thenReturn(List.of(user));
+    }
+
+    @AfterEach
+    void tearDown() {
+        coalescer.shutdown();
+    }
+
+    private InventoryUpdateCoalescer coalescer(Duration window) {
+        return new InventoryUpdateCoalescer(notificationService, userRepository, transactionManager, clock, window);
+    }
+
+    @Test
+    void changesWithinTheWindow_becomeOneNotification() {
+        // Given
+        coalescer = coalescer(Duration.ofSeconds(10));
+        for (int i = 0; i < 10; i++) {
+            coalescer.onInventoryUpdated(InventoryUpdatedEvent.removed(10L));
+        }
+
+        // When
+        clock.advance(Duration.ofSeconds(9));
+        coalescer.flushDue();
+        verify(notificationService, never()).createAndSendNotifications(anyList(), eq(PushPriority.LOW));
+        clock.advance(Duration.ofSeconds(1));
+        coalescer.flushDue();
+
+        // Then
+        assertThat(sent()).singleElement().satisfies(notification -> {
+            assertThat(notification.getTitle()).isEqualTo("Inventory Update");
+            assertThat(notification.getMessage()).isEqualTo("10 items removed!");
+        });
+    }
+
+    @Test
+    void savedAndRemovedItems_areSummedUpWithoutLosingTheSavedItems() {
+        // Given
+        coalescer = coalescer(Duration.ofSeconds(10));
+        coalescer.onInventoryUpdated(InventoryUpdatedEvent.saved(10L, List.of(1L, 2L), List.of("Milk", "Bread")));
+        coalescer.onInventoryUpdated(InventoryUpdatedEvent.saved(10L, List.of(2L, 3L), List.of("Bread", "Cheese")));
+        coalescer.onInventoryUpdated(InventoryUpdatedEvent.removed(10L));
+
+        // When
+        clock.advance(Duration.ofSeconds(10));
+        coalescer.flushDue();
+
+        // Then
+        assertThat(sent()).singleElement().satisfies(notification -> {
+            assertThat(notification.getMessage()).isEqualTo("3 items saved and 1 item removed!");
+            assertThat(notification.getRelatedItemIds()).containsExactly(1L, 2L, 3L);
+        });
+    }
+
+    @Test
+    void singleSave_keepsTheItemSpecificConfirmation() {
+        // Given
+        coalescer = coalescer(Duration.ofSeconds(10));
+        coalescer.onInventoryUpdated(InventoryUpdatedEvent.saved(10L, List.of(7L), List.of("Banana")));
+
+        // When
+        coalescer.shutdown();
+
+        // Then: shutting down flushes the open windows
+        assertThat(sent()).singleElement().satisfies(notification -> {
+            assertThat(notification.getMessage()).isEqualTo("Item 'Banana' successfully saved!");
+            assertThat(notification.getRelatedItemId()).isEqualTo(7L);
+        });
+    }
+
+    @Test
+    void zeroWindow_confirmsEveryChangeRightAway() {
+        // Given
+        coalescer = coalescer(Duration.ZERO);
+
+        // When
+        coalescer.onInventoryUpdated(InventoryUpdatedEvent.removed(10L));
+
+        // Then
+        assertThat(sent()).singleElement()
+                .extracting(Notification::getMessage).isEqualTo("Instance of item successfully removed!");
+    }
+
+    @Test
+    void deletedUser_getsNothing() {
+        // Given
+        coalescer = coalescer(Duration.ofSeconds(10));
+        when(userRepository.findWithDeviceTokensByIdIn(List.of(20L))).thenReturn(List.of());
+        coalescer.onInventoryUpdated(InventoryUpdatedEvent.removed(20L));
+
+        // When
+        clock.advance(Duration.ofSeconds(10));
+        coalescer.flushDue();
+
+        // Then
+        assertThat(sent()).isEmpty();
+    }
+
+    @Test
+    void windowThatFailsToSend_doesNotLoseTheOtherUsersConfirmations() {
+        // Given: user 20's confirmation cannot be written
+        coalescer = coalescer(Duration.ofSeconds(10));
+        User failing = mock(User.class);
+        lenient().when(failing.getId()).thenReturn(20L);
+        when(userRepository.findWithDeviceTokensByIdIn(anyList())).thenAnswer(invocation -> Stream.of(user, failing)
+                .filter(candidate -> invocation.<List<Long>>getArgument(0).contains(candidate.getId()))
+                .toList());
+        List<Notification> written = new CopyOnWriteArrayList<>();
+        doAnswer(invocation -> {
+            List<Notification> notifications = invocation.getArgument(0);
+            if (notifications.stream().anyMatch(notification -> notification.getUser() == failing)) {
+                throw new IllegalStateException("value too long for related_item_ids");
+            }
+            written.addAll(notifications);
+            return null;
+        }).when(notificationService).createAndSendNotifications(anyList(), eq(PushPriority.LOW));
+        coalescer.onInventoryUpdated(InventoryUpdatedEvent.removed(10L));
+        coalescer.onInventoryUpdated(InventoryUpdatedEvent.removed(20L));
+
+        // When
+        clock.advance(Duration.ofSeconds(10));
+        coalescer.flushDue();
+
+        // Then
+        verify(notificationService, timeout(1000).times(3)).createAndSendNotifications(anyList(), eq(PushPriority.LOW));
+        assertThat(written).singleElement().extracting(Notification::getUser).isSameAs(user);
+    }
+
+    // The coalescer's own flush thread may get to a closed window first
+    private List<Notification> sent() {
+        ArgumentCaptor<List<Notification>> captor = ArgumentCaptor.captor();
+        verify(notificationService, timeout(1000)).createAndSendNotifications(captor.capture(), eq(PushPriority.LOW));
+        return captor.getAllValues().stream().flatMap(List::stream).toList();
+    }
+}
@@ -8,22 +8,38 @@ import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 
+import be.ucll.dto.DeferredDeliveryDTO;
+import be.ucll.dto.NotificationCursor;
+import be.ucll.dto.NotificationDTO;
 import be.ucll.exception.DomainException;
 import be.ucll.model.Notification;
 import be.ucll.model.User;
 import be.ucll.model.UserDeviceToken;
+import be.ucll.repository.NotificationBatchRepository;
+import be.ucll.repository.NotificationOutboxRepository;
 import be.ucll.repository.NotificationRepository;
+import be.ucll.repository.UserRepository;
+import be.ucll.scheduler.NotificationDeferredEvent;
 import be.ucll.service.NotificationService;
-import be.ucll.service.PushNotificationService;
+import be.ucll.service.PeakHours;
+import be.ucll.service.PushMessage;
+import be.ucll.service.PushMetrics;
+import be.ucll.service.PushPriority;
 
 @ExtendWith(MockitoExtension.class)
 class NotificationServiceTest {
@@ -32,7 +48,25 @@ class NotificationServiceTest {
     private NotificationRepository notificationRepository;
 
     @Mock
-    private PushNotificationService pushNotificationService;
+    private NotificationBatchRepository notificationBatchRepository;
+
+    @Mock
+    private NotificationOutboxRepository notificationOutboxRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private PushMetrics pushMetrics;
+
+    @Mock
+    private PeakHours peakHours;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private Clock clock;
 
     @InjectMocks
     private NotificationService notificationService;
@@ -41,7 +75,7 @@ class NotificationServiceTest {
     private User mockUser;
 
     @Test
-    void createAndSendNotification_ShouldSaveNotificationAndCallPushService() {
+    void createAndSendNotification_ShouldSaveNotificationAndQueuePushesInTheOutbox() {
         String title = "Food Expiring!";
         String message = "Your milk is about to about to go bad.";
         Long relatedId = 101L;
@@ -51,12 +85,62 @@ class NotificationServiceTest {
 
         when(mockUser.getDeviceTokens()).thenReturn(List.of(phone, tablet));
 
-        notificationService.createAndSendNotification(mockUser, title, message, relatedId);
+        notificationService.createAndSendNotification(mockUser, title, message, relatedId, PushPriority.HIGH);
 
         verify(notificationRepository, times(1)).save(any(Notification.class));
+        verify(pushMetrics).recordTokensPerUser(2);
+
+        verify(notificationOutboxRepository).insertAll(List.of(
+                new PushMessage("token-phone-123", message),
+                new PushMessage("token-tablet-456", message)));
+    }
+
+    @Test
+    void createAndSendNotifications_ShouldBatchInsertAndQueueEveryPush() {
+        UserDeviceToken phone = new UserDeviceToken(mockUser, "token-phone-123", "iPhone 13");
+        when(mockUser.getDeviceTokens()).thenReturn(List.of(phone));
+
+        List<Notification> notifications = List.of(
+            new Notification(mockUser, "Expiry Alert", "Your milk expires today!", 1L),
+            new Notification(mockUser, "Expiry Alert", "Your bread has expired!", 2L));
+
+        when(notificationBatchRepository.insertAll(notifications)).thenReturn(notifications);
+
+        notificationService.createAndSendNotifications(notifications, PushPriority.HIGH);
+
+        verify(notificationBatchRepository).insertAll(notifications);
+        verify(notificationRepository, never()).save(any());
+        verify(notificationOutboxRepository).insertAll(List.of(
+                new PushMessage("token-phone-123", "Your milk expires today!"),
+                new PushMessage("token-phone-123", "Your bread has expired!")));
+    }
+
+    @Test
+    void createAndSendNotifications_ShouldNotQueueDuplicatesRejectedByTheDatabase() {
+        UserDeviceToken phone = new UserDeviceToken(mockUser, "token-phone-123", "iPhone 13");
+        when(mockUser.getDeviceTokens()).thenReturn(List.of(phone));
+
+        Notification fresh = new Notification(mockUser, "Expiry Alert", "Your milk expires today!", 1L);
+        Notification duplicate = new Notification(mockUser, "Expiry Alert", "Your bread has expired!", 2L);
+        List<Notification> notifications = List.of(fresh, duplicate);
+        when(notificationBatchRepository.insertAll(notifications)).thenReturn(List.of(fresh));
 
-        verify(pushNotificationService).sendToDevice("token-phone-123", message);
-        verify(pushNotificationService).sendToDevice("token-tablet-456", message);
+        notificationService.createAndSendNotifications(notifications, PushPriority.HIGH);
+
+        verify(notificationOutboxRepository).insertAll(List.of(new PushMessage("token-phone-123", "Your milk expires today!")));
+    }
+
+    @Test
+    void createAndSendNotifications_ShouldQueuePushesInTheGivenLane() {
+        UserDeviceToken phone = new UserDeviceToken(mockUser, "token-phone-123", "iPhone 13");
+        when(mockUser.getDeviceTokens()).thenReturn(List.of(phone));
+
+        List<Notification> notifications = List.of(new Notification(mockUser, "Inventory Update", "3 items removed!", null));
+        when(notificationBatchRepository.insertAll(notifications)).thenReturn(notifications);
+
+        notificationService.createAndSendNotifications(notifications, PushPriority.LOW);
+
+        verify(notificationOutboxRepository).insertAll(List.of(new PushMessage(null, "token-phone-123", "3 items removed!", PushPriority.LOW)));
     }
 
     @Test
@@ -119,13 +203,185 @@ class NotificationServiceTest {
         verify(notificationRepository).delete(notification);
     }
 
+    @Test
+    void markAsRead_ShouldWriteNothing_WhenBelowTheReadMark() {
+        Notification notification = new Notification(mockUser, "Title", "Msg", null);
+        notification.setId(5L);
+        when(notificationRepository.findById(5L)).thenReturn(Optional.of(notification));
+        when(mockUser.getUsername()).thenReturn("JohnDoe");
+        when(mockUser.getLastReadNotificationId()).thenReturn(10L);
+
+        notificationService.markAsRead(5L, "JohnDoe");
+
+        verify(notificationRepository, never()).save(any());
+    }
+
+    @Test
+    void markAllAsRead_ShouldOnlyMoveTheUsersReadMark() {
+        notificationService.markAllAsRead("JohnDoe");
+
+        verify(userRepository).markAllNotificationsRead("JohnDoe");
+    }
+
     @Test
     void getUnreadCount_ShouldReturnCountFromRepo() {
         String username = "user1";
-        when(notificationRepository.countByUser_UsernameAndIsReadFalse(username)).thenReturn(5L);
+        when(notificationRepository.countUnread(username)).thenReturn(5L);
 
         long count = notificationService.getUnreadCount(username);
 
         assertThat(count).isEqualTo(5L);
     }
+
+    @Test
+    void createAndSendNotifications_ShouldHoldThePushesOfDeferredNotifications() {
+        UserDeviceToken phone = new UserDeviceToken(mockUser, "token-phone-123", "iPhone 13");
+        when(mockUser.getDeviceTokens()).thenReturn(List.of(phone));
+
+        Notification now = new Notification(mockUser, "Expiry Alert", "Your milk expires today!", 1L);
+        Notification later = new Notification(mockUser, "Expiry Alert", "Your bread expires tomorrow!", 2L);
+        later.setDeliverAt(LocalDateTime.of(2025, 6, 2, 7, 0));
+        when(notificationBatchRepository.insertAll(List.of(now, later))).thenReturn(List.of(now, later));
+
+        notificationService.createAndSendNotifications(List.of(now, later), PushPriority.HIGH);
+
+        verify(notificationOutboxRepository).insertAll(List.of(new PushMessage("token-phone-123", "Your milk expires today!")));
+    }
+
+    @Test
+    void snooze_ShouldHideTheNotificationUntilTheGivenTime() {
+        Notification notification = new Notification(mockUser, "Expiry Alert", "Your milk expires today!", 1L);
+        notification.setId(3L);
+        notification.setIsRead(true);
+        when(notificationRepository.findById(3L)).thenReturn(Optional.of(notification));
+        when(mockUser.getUsername()).thenReturn("JohnDoe");
+        when(clock.instant()).thenReturn(Instant.parse("2025-06-01T20:00:00Z"));
+
+        notificationService.snooze(3L, "JohnDoe", Instant.parse("2025-06-02T07:00:00Z"));
+
+        LocalDateTime deliverAt = LocalDateTime.of(2025, 6, 2, 7, 0);
+        assertThat(notification.getDeliverAt()).isEqualTo(deliverAt);
+        assertThat(notification.getIsRead()).isFalse();
+        verify(notificationRepository).save(notification);
+        verify(eventPublisher).publishEvent(new NotificationDeferredEvent(3L, deliverAt));
+    }
+
+    @Test
+    void snooze_ShouldThrowException_WhenTheTimeHasPassed() {
+        Notification notification = new Notification(mockUser, "Expiry Alert", "Your milk expires today!", 1L);
+        when(notificationRepository.findById(3L)).thenReturn(Optional.of(notification));
+        when(mockUser.getUsername()).thenReturn("JohnDoe");
+        when(clock.instant()).thenReturn(Instant.parse("2025-06-01T20:00:00Z"));
+
+        assertThatThrownBy(() -> notificationService.snooze(3L, "JohnDoe", Instant.parse("2025-06-01T19:00:00Z")))
+            .isInstanceOf(DomainException.class)
+            .hasMessage("Snooze time must be in the future");
+
+        verify(notificationRepository, never()).save(any());
+    }
+
+    @Test
+    void deliverDeferred_ShouldReplaceWhatIsStillDueWithANewNotification() {
+        UserDeviceToken phone = new UserDeviceToken(mockUser, "token-phone-123", "iPhone 13");
+        when(mockUser.getDeviceTokens()).thenReturn(List.of(phone));
+        LocalDateTime deliverAt = LocalDateTime.of(2025, 6, 2, 7, 0);
+        Notification milk = new Notification(mockUser, "Expiry Alert", "Your milk expires today!", 1L);
+        milk.setId(3L);
+        milk.setDeliverAt(deliverAt);
+        Notification bread = new Notification(mockUser, "Expiry Alert", "Your bread expires today!", 2L);
+        bread.setId(4L);
+        when(notificationRepository.findWithDeviceTokensByIdIn(List.of(3L, 4L))).thenReturn(List.of(milk, bread));
+        // 4 was snoozed again in the meantime
+        when(notificationRepository.deleteDeferred(3L, deliverAt)).thenReturn(1);
+        when(notificationRepository.deleteDeferred(4L, deliverAt)).thenReturn(0);
+        when(notificationBatchRepository.insertAll(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        int delivered = notificationService.deliverDeferred(List.of(
+            new DeferredDeliveryDTO(3L, deliverAt), new DeferredDeliveryDTO(4L, deliverAt)));
+
+        assertThat(delivered).isEqualTo(1);
+        ArgumentCaptor<List<Notification>> inserted = ArgumentCaptor.captor();
+        verify(notificationBatchRepository).insertAll(inserted.capture());
+        assertThat(inserted.getValue()).singleElement().satisfies(notification -> {
+            assertThat(notification.getId()).isNull();
+            assertThat(notification.getMessage()).isEqualTo("Your milk expires today!");
+            assertThat(notification.getDeliverAt()).isNull();
+            assertThat(notification.getIsRead()).isFalse();
+        });
+        verify(notificationOutboxRepository).insertAll(List.of(new PushMessage("token-phone-123", "Your milk expires today!")));
+    }
+
+    @Test
+    void createAndSendNotifications_ShouldHoldLowPriorityPushesUntilThePeakEnds() {
+        Instant now = Instant.parse("2025-06-01T18:30:00Z");
+        when(clock.instant()).thenReturn(now);
+        when(peakHours.endOfPeak(now)).thenReturn(Instant.parse("2025-06-01T20:00:00Z"));
+
+        Notification update = new Notification(mockUser, "Inventory Update", "3 items removed!", null);
+        List<Notification> notifications = List.of(update);
+        when(notificationBatchRepository.insertAll(notifications)).thenReturn(notifications);
+
+        notificationService.createAndSendNotifications(notifications, PushPriority.LOW);
+
+        assertThat(update.getDeliverAt()).isEqualTo(LocalDateTime.of(2025, 6, 1, 20, 0));
+        assertThat(update.getPushPriority()).isEqualTo(PushPriority.LOW);
+        verify(notificationOutboxRepository).insertAll(List.of());
+    }
+
+    @Test
+    void createAndSendNotifications_ShouldNeverHoldHighPriorityPushes() {
+        UserDeviceToken phone = new UserDeviceToken(mockUser, "token-phone-123", "iPhone 13");
+        when(mockUser.getDeviceTokens()).thenReturn(List.of(phone));
+        List<Notification> notifications = List.of(new Notification(mockUser, "Expiry Alert", "Your milk expires today!", 1L));
+        when(notificationBatchRepository.insertAll(notifications)).thenReturn(notifications);
+
+        notificationService.createAndSendNotifications(notifications, PushPriority.HIGH);
+
+        verify(peakHours, never()).endOfPeak(any());
+        verify(notificationOutboxRepository).insertAll(List.of(new PushMessage("token-phone-123", "Your milk expires today!")));
+    }
+
+    @Test
+    void deliverDeferred_ShouldKeepTheLowLaneOfNotificationsHeldDuringPeakHours() {
+        UserDeviceToken phone = new UserDeviceToken(mockUser, "token-phone-123", "iPhone 13");
+        when(mockUser.getDeviceTokens()).thenReturn(List.of(phone));
+        LocalDateTime deliverAt = LocalDateTime.of(2025, 6, 1, 20, 0);
+        Notification held = new Notification(mockUser, "Inventory Update", "3 items removed!", null);
+        held.setId(3L);
+        held.setDeliverAt(deliverAt);
+        held.setPushPriority(PushPriority.LOW);
+        Notification snoozed = new Notification(mockUser, "Expiry Alert", "Your milk expires today!", 1L);
+        snoozed.setId(4L);
+        snoozed.setDeliverAt(deliverAt);
+        when(notificationRepository.findWithDeviceTokensByIdIn(List.of(3L, 4L))).thenReturn(List.of(held, snoozed));
+        when(notificationRepository.deleteDeferred(any(), any())).thenReturn(1);
+        when(notificationBatchRepository.insertAll(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        notificationService.deliverDeferred(List.of(new DeferredDeliveryDTO(3L, deliverAt), new DeferredDeliveryDTO(4L, deliverAt)));
+
+        verify(notificationOutboxRepository).insertAll(List.of(
+                new PushMessage("token-phone-123", "Your milk expires today!"),
+                new PushMessage(null, "token-phone-123", "3 items removed!", PushPriority.LOW)));
+    }
+
+    @Test
+    void getUserNotifications_ShouldReadThePageAfterTheCursorByUserId() {
+        LocalDateTime timestamp = LocalDateTime.of(2025, 6, 1, 9, 0);
+        NotificationDTO older = new NotificationDTO(7L, "Expiry Alert", "Your milk expires today!", timestamp.minusHours(1), false, 1L, null);
+        when(userRepository.findIdByUsername("JohnDoe")).thenReturn(Optional.of(10L));
+        when(notificationRepository.findFeedBefore(10L, timestamp, 8L, Limit.of(20))).thenReturn(List.of(older));
+
+        List<NotificationDTO> page = notificationService.getUserNotifications("JohnDoe", new NotificationCursor(timestamp, 8L), 20);
+
+        assertThat(page).containsExactly(older);
+        verify(notificationRepository, never()).findFeed(any(), any());
+    }
+
+    @Test
+    void getUserNotifications_ShouldRejectPagesLargerThanTheMaximum() {
+        assertThatThrownBy(() -> notificationService.getUserNotifications("JohnDoe", null, NotificationService.MAX_PAGE_SIZE + 1))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        verify(userRepository, never()).findIdByUsername(any());
+    }
 }
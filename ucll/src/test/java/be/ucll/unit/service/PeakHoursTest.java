@@ -0,0 +1,49 @@
+package be.ucll.unit.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import org.junit.jupiter.api.Test;
+
+import be.ucll.service.PeakHours;
+
+class PeakHoursTest {
+
+    @Test
+    void endOfPeak_holdsOnlyWithinTheWindow() {
+        // Given
+        PeakHours peakHours = new PeakHours("17:00-22:00", ZoneOffset.UTC);
+
+        // When / Then
+        assertThat(peakHours.endOfPeak(Instant.parse("2025-06-01T18:30:00Z"))).isEqualTo(Instant.parse("2025-06-01T22:00:00Z"));
+        assertThat(peakHours.endOfPeak(Instant.parse("2025-06-01T17:00:00Z"))).isEqualTo(Instant.parse("2025-06-01T22:00:00Z"));
+        assertThat(peakHours.endOfPeak(Instant.parse("2025-06-01T22:00:00Z"))).isNull();
+        assertThat(peakHours.endOfPeak(Instant.parse("2025-06-01T09:00:00Z"))).isNull();
+    }
+
+    @Test
+    void endOfPeak_wrapsPastMidnightInTheConfiguredZone() {
+        // Given: 22:00-02:00 in Brussels is 20:00-00:00 UTC in summer
+        PeakHours peakHours = new PeakHours("22:00-02:00", ZoneId.of("Europe/Brussels"));
+
+        // When / Then
+        assertThat(peakHours.endOfPeak(Instant.parse("2025-06-01T21:00:00Z"))).isEqualTo(Instant.parse("2025-06-02T00:00:00Z"));
+        assertThat(peakHours.endOfPeak(Instant.parse("2025-06-01T23:30:00Z"))).isEqualTo(Instant.parse("2025-06-02T00:00:00Z"));
+        assertThat(peakHours.endOfPeak(Instant.parse("2025-06-02T00:30:00Z"))).isNull();
+    }
+
+    @Test
+    void endOfPeak_neverHoldsWithoutPeakHours() {
+        assertThat(new PeakHours("", ZoneOffset.UTC).endOfPeak(Instant.parse("2025-06-01T18:30:00Z"))).isNull();
+    }
+
+    @Test
+    void constructor_rejectsMalformedHours() {
+        assertThatThrownBy(() -> new PeakHours("17:00", ZoneOffset.UTC)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new PeakHours("17:00-17:00", ZoneOffset.UTC)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,125 @@
+package be.ucll.unit.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import be.ucll.service.PushCircuitBreaker;
+import be.ucll.support.MutableClock;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class PushCircuitBreakerTest {
+
+    private final MutableClock clock = new MutableClock(Instant.parse("2025-06-01T09:00:00Z"), ZoneOffset.UTC);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private PushCircuitBreaker breaker;
+
+    @BeforeEach
+    void setUp() {
+        breaker = new PushCircuitBreaker(clock, meterRegistry, 3, Duration.ofSeconds(30));
+    }
+
+    @Test
+    void opensAfterTheThresholdOfFailuresInARow() {
+        // Given
+        breaker.recordFailure();
+        breaker.recordFailure();
+        breaker.recordSuccess();
+        breaker.recordFailure();
+        breaker.recordFailure();
+        assertThat(breaker.allowRequest()).isTrue();
+
+        // When
+        breaker.recordFailure();
+
+        // Then
+        assertThat(breaker.getState()).isEqualTo(PushCircuitBreaker.State.OPEN);
+        assertThat(breaker.isOpen()).isTrue();
+        assertThat(breaker.allowRequest()).isFalse();
+        assertThat(meterRegistry.get("push.circuit.state").gauge().value()).isEqualTo(2.0);
+    }
+
+    @Test
+    void afterTheOpenDuration_letsOneTrialCallThrough() {
+        // Given
+        open();
+
+        // When
+        clock.advance(Duration.ofSeconds(30));
+
+        // Then
+        assertThat(breaker.isOpen()).isFalse();
+        assertThat(breaker.allowRequest()).isTrue();
+        assertThat(breaker.getState()).isEqualTo(PushCircuitBreaker.State.HALF_OPEN);
+        assertThat(breaker.allowRequest()).isFalse();
+    }
+
+    @Test
+    void successfulTrialCall_closesTheCircuit() {
+        // Given
+        open();
+        clock.advance(Duration.ofSeconds(30));
+        breaker.allowRequest();
+
+        // When
+        breaker.recordSuccess();
+
+        // Then
+        assertThat(breaker.getState()).isEqualTo(PushCircuitBreaker.State.CLOSED);
+        assertThat(breaker.allowRequest()).isTrue();
+        assertThat(meterRegistry.get("push.circuit.state").gauge().value()).isZero();
+    }
+
+    @Test
+    void failedTrialCall_opensTheCircuitAgain() {
+        // Given
+        open();
+        clock.advance(Duration.ofSeconds(30));
+        breaker.allowRequest();
+
+        // When
+        breaker.recordFailure();
+
+        // Then
+        assertThat(breaker.isOpen()).isTrue();
+        clock.advance(Duration.ofSeconds(29));
+        assertThat(breaker.allowRequest()).isFalse();
+    }
+
+    @Test
+    void failedRetries_doNotCountTowardsOpening_butEndATrialCall() {
+        // Given
+        breaker.recordRetryFailure();
+        breaker.recordRetryFailure();
+        breaker.recordRetryFailure();
+        assertThat(breaker.getState()).isEqualTo(PushCircuitBreaker.State.CLOSED);
+        open();
+        clock.advance(Duration.ofSeconds(30));
+        breaker.allowRequest();
+
+        // When
+        breaker.recordRetryFailure();
+
+        // Then
+        assertThat(breaker.isOpen()).isTrue();
+    }
+
+    @Test
+    void constructor_rejectsAThresholdBelowOne() {
+        assertThatThrownBy(() -> new PushCircuitBreaker(clock, meterRegistry, 0, Duration.ofSeconds(30)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private void open() {
+        for (int i = 0; i < 3; i++) {
+            breaker.recordFailure();
+        }
+    }
+}
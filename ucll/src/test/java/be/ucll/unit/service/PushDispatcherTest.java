@@ -0,0 +1,290 @@
+package be.ucll.unit.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import be.ucll.repository.NotificationOutboxRepository;
+import be.ucll.service.DeviceTokenPruner;
+import be.ucll.service.PushBackpressure;
+import be.ucll.service.PushDispatcher;
+import be.ucll.service.PushLane;
+import be.ucll.service.PushMessage;
+import be.ucll.service.PushMetrics;
+import be.ucll.service.PushNotificationService;
+import be.ucll.service.PushPriority;
+import be.ucll.service.PushRateLimiter;
+import be.ucll.service.PushResult;
+
+@ExtendWith(MockitoExtension.class)
+class PushDispatcherTest {
+
+    @Mock
+    private PushNotificationService pushNotificationService;
+
+    @Mock
+    private NotificationOutboxRepository notificationOutboxRepository;
+
+    @Mock
+    private DeviceTokenPruner deviceTokenPruner;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private PushDispatcher dispatcher;
+
+    private final List<PushMessage> sent = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        lenient().doAnswer(invocation -> {
+            List<PushMessage> batch = invocation.getArgument(0);
+            sent.addAll(batch);
+            return delivered(batch);
+        }).when(pushNotificationService).sendAll(any());
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (dispatcher != null) {
+            dispatcher.shutdown();
+        }
+    }
+
+    private PushDispatcher dispatcher(int capacity, PushBackpressure whenFull) {
+        return new PushDispatcher(pushNotificationService, notificationOutboxRepository, deviceTokenPruner,
+                new PushMetrics(meterRegistry), Clock.systemUTC(), List.of(lane(PushPriority.HIGH, capacity, whenFull), lane(PushPriority.LOW, 10, PushBackpressure.DROP)),
+                Duration.ofMillis(50), Duration.ofSeconds(5));
+    }
+
+    private PushLane lane(PushPriority priority, int capacity, PushBackpressure whenFull) {
+        return new PushLane(priority, capacity, 1, whenFull, new PushRateLimiter(1000, 1000));
+    }
+
+    private final List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+
+    @Test
+    void submit_sendsOnAWorkerThreadAndMarksOutboxRowsDelivered() {
+        // Given
+        dispatcher = dispatcher(10, PushBackpressure.BLOCK);
+
+        // When
+        dispatcher.submit(new PushMessage(7L, "token-1", "Your milk expires today!"));
+
+        // Then
+        verify(notificationOutboxRepository, timeout(1000)).markDelivered(eq(List.of(7L)), any());
+        assertThat(sent).containsExactly(new PushMessage(7L, "token-1", "Your milk expires today!"));
+    }
+
+    @Test
+    void submit_handsTheResultsToTheTokenPruner() {
+        // Given
+        List<PushResult> results = List.of(PushResult.failed("token-1", "UNREGISTERED"));
+        doAnswer(invocation -> results).when(pushNotificationService).sendAll(any());
+        dispatcher = dispatcher(10, PushBackpressure.BLOCK);
+
+        // When
+        dispatcher.submit(new PushMessage(7L, "token-1", "Your milk expires today!"));
+
+        // Then
+        verify(deviceTokenPruner, timeout(1000)).prune(results);
+    }
+
+    @Test
+    void submit_leavesRetryableFailuresClaimedForTheRelay() {
+        // Given
+        Map<String, String> errors = Map.of("token-2", "UNAVAILABLE", "token-3", "UNREGISTERED");
+        doAnswer(invocation -> invocation.<List<PushMessage>>getArgument(0).stream()
+                .map(push -> errors.containsKey(push.token())
+                        ? PushResult.failed(push.token(), errors.get(push.token()))
+                        : PushResult.delivered(push.token(), "msg"))
+                .toList())
+                .when(pushNotificationService).sendAll(any());
+        dispatcher = dispatcher(10, PushBackpressure.BLOCK);
+
+        // When
+        dispatcher.submit(new PushMessage(1L, "token-1", "Sent"));
+        dispatcher.submit(new PushMessage(2L, "token-2", "Retried later"));
+        dispatcher.submit(new PushMessage(3L, "token-3", "Dead token"));
+        dispatcher.shutdown();
+
+        // Then: only the UNAVAILABLE push is relayed again once its claim runs out
+        ArgumentCaptor<List<Long>> marked = ArgumentCaptor.captor();
+        verify(notificationOutboxRepository, atLeastOnce()).markDelivered(marked.capture(), any());
+        assertThat(marked.getAllValues().stream().flatMap(List::stream)).containsExactlyInAnyOrder(1L, 3L);
+    }
+
+    @Test
+    void submit_whenFull_dropsInsteadOfBlockingTheCaller() throws InterruptedException {
+        // Given both workers (the low one helps out with high pushes) stuck on slow pushes and a full queue
+        Semaphore sending = new Semaphore(0);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            sending.release();
+            release.await();
+            List<PushMessage> batch = invocation.getArgument(0);
+            sent.addAll(batch);
+            return delivered(batch);
+        }).when(pushNotificationService).sendAll(any());
+        dispatcher = dispatcher(1, PushBackpressure.DROP);
+        dispatcher.submit(new PushMessage(1L, "token-1", "In flight"));
+        assertThat(sending.tryAcquire(1, TimeUnit.SECONDS)).isTrue();
+        dispatcher.submit(new PushMessage(2L, "token-2", "In flight"));
+        assertThat(sending.tryAcquire(1, TimeUnit.SECONDS)).isTrue();
+        dispatcher.submit(new PushMessage(3L, "token-3", "Queued"));
+
+        // When
+        long start = System.nanoTime();
+        boolean queued = dispatcher.submit(new PushMessage(4L, "token-4", "Dropped"));
+
+        // Then
+        assertThat(queued).isFalse();
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofMillis(50));
+        assertThat(dispatcher.remainingCapacity(PushPriority.HIGH)).isZero();
+        assertThat(meterRegistry.get("push.dispatch.queue.depth").tag("priority", "HIGH").gauge().value()).isEqualTo(1);
+        assertThat(meterRegistry.get("push.dispatch.dropped").tags("priority", "HIGH", "reason", "queue_full").counter().count()).isEqualTo(1);
+        release.countDown();
+        for (long id = 1; id <= 3; id++) {
+            verify(notificationOutboxRepository, timeout(1000)).markDelivered(eq(List.of(id)), any());
+        }
+        assertThat(sent).extracting(PushMessage::token).containsExactlyInAnyOrder("token-1", "token-2", "token-3");
+        verify(notificationOutboxRepository, never()).markDelivered(eq(List.of(4L)), any());
+    }
+
+    @Test
+    void lowPriorityWorker_takesWaitingHighPriorityPushesFirst() throws InterruptedException {
+        // Given both workers stuck: the low one on a confirmation, the high one on an alert
+        CountDownLatch lowSending = new CountDownLatch(1);
+        CountDownLatch highSending = new CountDownLatch(1);
+        CountDownLatch releaseLow = new CountDownLatch(1);
+        CountDownLatch releaseHigh = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            List<PushMessage> batch = invocation.getArgument(0);
+            if (batch.get(0).token().equals("low-0")) {
+                lowSending.countDown();
+                releaseLow.await();
+            } else if (batch.get(0).token().equals("high-0")) {
+                highSending.countDown();
+                releaseHigh.await();
+            }
+            sent.addAll(batch);
+            return delivered(batch);
+        }).when(pushNotificationService).sendAll(any());
+        dispatcher = dispatcher(10, PushBackpressure.BLOCK);
+        dispatcher.submit(new PushMessage(null, "low-0", "Item saved", PushPriority.LOW));
+        assertThat(lowSending.await(1, TimeUnit.SECONDS)).isTrue();
+        dispatcher.submit(new PushMessage(null, "high-0", "Milk expires today", PushPriority.HIGH));
+        assertThat(highSending.await(1, TimeUnit.SECONDS)).isTrue();
+
+        // When a confirmation and then an alert queue up behind them
+        dispatcher.submit(new PushMessage(null, "low-1", "Item saved", PushPriority.LOW));
+        dispatcher.submit(new PushMessage(null, "high-1", "Cheese expires today", PushPriority.HIGH));
+        releaseLow.countDown();
+
+        // Then the freed low worker sends the alert first
+        for (int i = 0; i < 100 && sent.size() < 3; i++) {
+            Thread.sleep(10);
+        }
+        assertThat(sent).extracting(PushMessage::token).containsExactly("low-0", "high-1", "low-1");
+        releaseHigh.countDown();
+    }
+
+    @Test
+    void backlog_isSentInBatchesNoLargerThanThePermitsAtHand() throws InterruptedException {
+        // Given a lane allowing a burst of 3 and then 20 pushes a second
+        doAnswer(invocation -> {
+            List<PushMessage> batch = invocation.getArgument(0);
+            batchSizes.add(batch.size());
+            sent.addAll(batch);
+            return delivered(batch);
+        }).when(pushNotificationService).sendAll(any());
+        PushLane high = new PushLane(PushPriority.HIGH, 20, 1, PushBackpressure.BLOCK, new PushRateLimiter(20, 3));
+        dispatcher = new PushDispatcher(pushNotificationService, notificationOutboxRepository, deviceTokenPruner,
+                new PushMetrics(meterRegistry), Clock.systemUTC(), List.of(high, lane(PushPriority.LOW, 10, PushBackpressure.DROP)),
+                Duration.ofMillis(50), Duration.ofSeconds(5));
+
+        // When
+        for (int i = 0; i < 10; i++) {
+            dispatcher.submit(new PushMessage("token-" + i, "Milk expires today"));
+        }
+
+        // Then: the first pushes go out right away instead of after the permits for the whole backlog
+        for (int i = 0; i < 20 && sent.isEmpty(); i++) {
+            Thread.sleep(10);
+        }
+        assertThat(sent).isNotEmpty();
+        dispatcher.shutdown();
+        assertThat(sent).hasSize(10);
+        assertThat(batchSizes).allMatch(size -> size <= 3);
+    }
+
+    @Test
+    void submit_whenSendingFails_leavesTheOutboxRowsClaimed() {
+        // Given
+        doAnswer(invocation -> {
+            throw new IllegalStateException("FCM client broken");
+        }).when(pushNotificationService).sendAll(any());
+        dispatcher = dispatcher(10, PushBackpressure.BLOCK);
+
+        // When
+        dispatcher.submit(new PushMessage(5L, "token-1", "Lost?"));
+        dispatcher.shutdown();
+
+        // Then: the relay claims the row again once its claim runs out
+        verify(pushNotificationService).sendAll(any());
+        verify(notificationOutboxRepository, never()).markDelivered(any(), any());
+    }
+
+    @Test
+    void shutdown_drainsQueuedPushesAndRejectsNewOnes() {
+        // Given
+        dispatcher = dispatcher(10, PushBackpressure.BLOCK);
+        for (int i = 0; i < 5; i++) {
+            dispatcher.submit(new PushMessage("token-" + i, "Queued"));
+        }
+
+        // When
+        dispatcher.shutdown();
+        boolean late = dispatcher.submit(new PushMessage("token-late", "Too late"));
+
+        // Then
+        assertThat(late).isFalse();
+        assertThat(sent).extracting(PushMessage::token)
+                .containsExactlyInAnyOrder("token-0", "token-1", "token-2", "token-3", "token-4");
+    }
+
+    @Test
+    void constructor_rejectsAnEmptyQueue() {
+        assertThatThrownBy(() -> dispatcher(0, PushBackpressure.BLOCK))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static List<PushResult> delivered(List<PushMessage> batch) {
+        return batch.stream().map(push -> PushResult.delivered(push.token(), "msg")).toList();
+    }
+}
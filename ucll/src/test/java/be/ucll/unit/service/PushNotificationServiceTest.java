@@ -1,24 +1,38 @@
 package be.ucll.unit.service;
 
-import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
-import static org.assertj.core.api.Assertions.assertThatCode;
-
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
-import com.google.firebase.messaging.FirebaseMessaging;
-import com.google.firebase.messaging.FirebaseMessagingException;
-import com.google.firebase.messaging.Message;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 
+import be.ucll.service.PushCircuitBreaker;
+import be.ucll.service.PushMessage;
+import be.ucll.service.PushMetrics;
 import be.ucll.service.PushNotificationService;
+import be.ucll.service.PushResult;
+import be.ucll.service.PushTransport;
+import be.ucll.service.PushTransportException;
+import be.ucll.support.MutableClock;
 
 @ExtendWith(MockitoExtension.class)
 class PushNotificationServiceTest {
@@ -28,53 +42,181 @@ class PushNotificationServiceTest {
     private final String validMessage = "Your food is expiring soon!";
 
     @Mock
-    private FirebaseMessaging firebaseMessaging;
+    private PushTransport pushTransport;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private PushCircuitBreaker pushCircuitBreaker;
 
-    @InjectMocks
     private PushNotificationService pushNotificationService;
 
+    @BeforeEach
+    void setUp() {
+        pushCircuitBreaker = new PushCircuitBreaker(Clock.systemUTC(), new SimpleMeterRegistry(), 2, Duration.ofMinutes(1));
+        pushNotificationService = new PushNotificationService(pushTransport, pushCircuitBreaker,
+                new PushMetrics(meterRegistry), 3, Duration.ofMillis(1), Duration.ofMillis(5));
+    }
+
     @Test
-    void sendToDevice_happyPath() throws FirebaseMessagingException {
+    void sendAll_happyPath() throws PushTransportException {
         // Given
-        // Mock the send method to return dummy ID
-        when(firebaseMessaging.send(any(Message.class))).thenReturn("projects/resqfood/messages/msg_id");
+        when(pushTransport.isAvailable()).thenReturn(true);
+        when(pushTransport.send(anyList())).thenReturn(List.of(PushResult.delivered(validToken, "projects/resqfood/messages/msg_id")));
+
+        // When
+        List<PushResult> results = pushNotificationService.sendAll(pushes(validToken));
+
+        // Then
+        verify(pushTransport, times(1)).send(List.of(new PushMessage(validToken, validMessage)));
+        assertThat(results).singleElement().matches(PushResult::isDelivered);
+    }
+
+    @Test
+    void sendAll_transportError_failsEveryMessageOfTheCall() throws PushTransportException {
+        // Given: an error that is not worth retrying
+        when(pushTransport.isAvailable()).thenReturn(true);
+        when(pushTransport.send(anyList())).thenThrow(new PushTransportException("INVALID_ARGUMENT", "Bad request", null));
 
         // When
-        pushNotificationService.sendToDevice(validToken, validMessage);
+        List<PushResult> results = pushNotificationService.sendAll(pushes("phone", "tablet"));
 
         // Then
-        // Verify that send was called exactly once
-        ArgumentCaptor<Message> messageCaptor = ArgumentCaptor.forClass(Message.class);
-        verify(firebaseMessaging, times(1)).send(messageCaptor.capture());
+        verify(pushTransport, times(1)).send(anyList());
+        assertThat(results).extracting(PushResult::errorCode).containsExactly("INVALID_ARGUMENT", "INVALID_ARGUMENT");
     }
 
     @Test
-    void sendToDevice_firebaseError_unhappyPath() throws FirebaseMessagingException {
+    void sendAll_whenTheTransportIsUnavailable_sendsNothing() throws PushTransportException {
         // Given
-        // Simulate firebase failing
-        when(firebaseMessaging.send(any(Message.class))).thenThrow(new RuntimeException("Firebase unavailable"));
+        when(pushTransport.isAvailable()).thenReturn(false);
 
-        // When / Then
-        // Check that the exception wasn't thrown by the service
-        assertThatCode(() -> pushNotificationService.sendToDevice(validToken, validMessage)).doesNotThrowAnyException();
+        // When
+        List<PushResult> results = pushNotificationService.sendAll(pushes("phone", "tablet"));
 
-        // Check if we still attempted to send
-        verify(firebaseMessaging, times(1)).send(any(Message.class));
+        // Then
+        assertThat(results).extracting(PushResult::errorCode).containsExactly("NOT_CONFIGURED", "NOT_CONFIGURED");
+        verify(pushTransport, never()).send(anyList());
     }
 
     @Test
-    void sendToDevice_nullToken_unhappyPath() {
+    void sendAll_sendsInBatchesOfAtMost500() throws PushTransportException {
+        // Given
+        List<PushMessage> pushes = IntStream.range(0, 1200)
+                .mapToObj(i -> new PushMessage("token-" + i, validMessage))
+                .toList();
+        when(pushTransport.isAvailable()).thenReturn(true);
+        when(pushTransport.send(anyList())).thenAnswer(invocation -> successes(invocation.getArgument(0)));
 
-        // When / Then
-        assertThatCode(() -> pushNotificationService.sendToDevice(null, validMessage)).doesNotThrowAnyException();
+        // When
+        List<PushResult> results = pushNotificationService.sendAll(pushes);
 
-        // Check that we never called send
-        try {
-            verify(firebaseMessaging, never()).send(any(Message.class));
-        } catch (FirebaseMessagingException e) {
-            // Should not happen
-        }
+        // Then
+        ArgumentCaptor<List<PushMessage>> batches = ArgumentCaptor.captor();
+        verify(pushTransport, times(3)).send(batches.capture());
+        assertThat(batches.getAllValues()).extracting(List::size).containsExactly(500, 500, 200);
+        assertThat(results).hasSize(1200).allMatch(PushResult::isDelivered);
+    }
+
+    @Test
+    void sendAll_retriesOnlyTheRetryableFailures() throws PushTransportException {
+        // Given
+        when(pushTransport.isAvailable()).thenReturn(true);
+        when(pushTransport.send(anyList()))
+                .thenReturn(List.of(PushResult.delivered("phone", "msg-1"), PushResult.failed("tablet", "UNAVAILABLE")))
+                .thenReturn(List.of(PushResult.delivered("tablet", "msg-2")));
 
+        // When
+        List<PushResult> results = pushNotificationService.sendAll(pushes("phone", "tablet"));
+
+        // Then
+        ArgumentCaptor<List<PushMessage>> batches = ArgumentCaptor.captor();
+        verify(pushTransport, times(2)).send(batches.capture());
+        assertThat(batches.getAllValues()).extracting(List::size).containsExactly(2, 1);
+        assertThat(results).extracting(PushResult::token).containsExactly("phone", "tablet");
+        assertThat(results).allMatch(PushResult::isDelivered);
+        assertThat(pushCircuitBreaker.getState()).isEqualTo(PushCircuitBreaker.State.CLOSED);
     }
 
+    @Test
+    void sendAll_whenTheTransportKeepsFailing_opensTheCircuitAndFailsFast() throws PushTransportException {
+        // Given
+        when(pushTransport.isAvailable()).thenReturn(true);
+        when(pushTransport.send(anyList())).thenThrow(new PushTransportException("UNAVAILABLE", "FCM down", null));
+        List<PushMessage> pushes = List.of(new PushMessage(validToken, validMessage));
+
+        // When
+        List<PushResult> first = pushNotificationService.sendAll(pushes);
+        List<PushResult> second = pushNotificationService.sendAll(pushes);
+
+        // Then: the second failure opens the circuit, which also ends the retries
+        verify(pushTransport, times(2)).send(anyList());
+        assertThat(pushCircuitBreaker.getState()).isEqualTo(PushCircuitBreaker.State.OPEN);
+        assertThat(first).containsExactly(PushResult.failed(validToken, "UNAVAILABLE"));
+        assertThat(second).containsExactly(PushResult.failed(validToken, PushResult.CIRCUIT_OPEN));
+        assertThat(second).allMatch(PushResult::isRetryable);
+    }
+
+    @Test
+    void sendAll_retriesOfOneFailingMessage_doNotOpenTheCircuit() throws PushTransportException {
+        // Given: a message FCM always answers INTERNAL to
+        when(pushTransport.isAvailable()).thenReturn(true);
+        when(pushTransport.send(anyList())).thenReturn(List.of(PushResult.failed(validToken, "INTERNAL")));
+
+        // When
+        List<PushResult> results = pushNotificationService.sendAll(List.of(new PushMessage(validToken, validMessage)));
+
+        // Then: three calls, but only the first one counts as a failed call
+        verify(pushTransport, times(3)).send(anyList());
+        assertThat(results).containsExactly(PushResult.failed(validToken, "INTERNAL"));
+        assertThat(pushCircuitBreaker.getState()).isEqualTo(PushCircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void sendAll_whenTheTrialCallThrows_opensTheCircuitAgain() throws PushTransportException {
+        // Given: a half open circuit
+        MutableClock clock = new MutableClock(Instant.parse("2025-06-01T09:00:00Z"), ZoneOffset.UTC);
+        pushCircuitBreaker = new PushCircuitBreaker(clock, new SimpleMeterRegistry(), 1, Duration.ofSeconds(30));
+        pushNotificationService = new PushNotificationService(pushTransport, pushCircuitBreaker,
+                new PushMetrics(meterRegistry), 3, Duration.ofMillis(1), Duration.ofMillis(5));
+        pushCircuitBreaker.recordFailure();
+        clock.advance(Duration.ofSeconds(30));
+        when(pushTransport.isAvailable()).thenReturn(true);
+        when(pushTransport.send(anyList())).thenThrow(new IllegalArgumentException("Invalid message"));
+        List<PushMessage> pushes = List.of(new PushMessage(validToken, validMessage));
+
+        // When
+        assertThatThrownBy(() -> pushNotificationService.sendAll(pushes)).isInstanceOf(IllegalArgumentException.class);
+
+        // Then: the next trial is let through once the open duration passed again
+        assertThat(pushCircuitBreaker.getState()).isEqualTo(PushCircuitBreaker.State.OPEN);
+        clock.advance(Duration.ofSeconds(30));
+        assertThat(pushCircuitBreaker.allowRequest()).isTrue();
+    }
+
+    @Test
+    void sendAll_recordsLatencyDeliveriesAndFailuresPerErrorCode() throws PushTransportException {
+        // Given
+        when(pushTransport.isAvailable()).thenReturn(true);
+        when(pushTransport.send(anyList())).thenReturn(List.of(
+                PushResult.delivered("phone", "msg-1"),
+                PushResult.failed("old-tablet", "UNREGISTERED"),
+                PushResult.failed("watch", "INVALID_ARGUMENT")));
+
+        // When
+        pushNotificationService.sendAll(pushes("phone", "old-tablet", "watch"));
+
+        // Then
+        assertThat(meterRegistry.get("push.send.latency").tag("outcome", "success").timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("push.messages.delivered").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("push.messages.failed").tag("error", "UNREGISTERED").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("push.messages.failed").tag("error", "INVALID_ARGUMENT").counter().count()).isEqualTo(1);
+    }
+
+    private List<PushMessage> pushes(String... tokens) {
+        return Stream.of(tokens).map(token -> new PushMessage(token, validMessage)).toList();
+    }
+
+    private List<PushResult> successes(List<PushMessage> pushes) {
+        return pushes.stream().map(push -> PushResult.delivered(push.token(), "msg")).toList();
+    }
 }
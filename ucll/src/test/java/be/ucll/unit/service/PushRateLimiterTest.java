@@ -0,0 +1,68 @@
+package be.ucll.unit.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.junit.jupiter.api.Test;
+
+import be.ucll.service.PushRateLimiter;
+
+class PushRateLimiterTest {
+
+    @Test
+    void tryAcquire_allowsABurstThenThrottles() {
+        // Given
+        PushRateLimiter limiter = new PushRateLimiter(0.001, 3);
+
+        // When / Then
+        assertThat(limiter.tryAcquire()).isTrue();
+        assertThat(limiter.tryAcquire()).isTrue();
+        assertThat(limiter.tryAcquire()).isTrue();
+        assertThat(limiter.tryAcquire()).isFalse();
+    }
+
+    @Test
+    void acquire_waitsForTheBucketToRefill() throws InterruptedException {
+        // Given
+        PushRateLimiter limiter = new PushRateLimiter(20, 1);
+        limiter.acquire();
+
+        // When
+        long start = System.nanoTime();
+        limiter.acquire();
+        long waitedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        // Then: one token per 50ms
+        assertThat(waitedMillis).isGreaterThanOrEqualTo(30);
+    }
+
+    @Test
+    void tryAcquireUpTo_takesOnlyWhatIsAvailable_andReleaseGivesItBack() {
+        // Given
+        PushRateLimiter limiter = new PushRateLimiter(0.001, 3);
+
+        // When / Then
+        assertThat(limiter.tryAcquire(5)).isEqualTo(3);
+        assertThat(limiter.tryAcquire(5)).isZero();
+        limiter.release(2);
+        assertThat(limiter.tryAcquire(1)).isEqualTo(1);
+        assertThat(limiter.tryAcquire(5)).isEqualTo(1);
+    }
+
+    @Test
+    void acquire_whenInterrupted_throwsInterruptedException() {
+        // Given
+        PushRateLimiter limiter = new PushRateLimiter(0.001, 1);
+        assertThat(limiter.tryAcquire()).isTrue();
+
+        // When / Then
+        Thread.currentThread().interrupt();
+        assertThatThrownBy(limiter::acquire).isInstanceOf(InterruptedException.class);
+    }
+
+    @Test
+    void constructor_rejectsNonPositiveRates() {
+        assertThatThrownBy(() -> new PushRateLimiter(0, 10))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
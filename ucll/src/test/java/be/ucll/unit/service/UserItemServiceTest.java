@@ -1,6 +1,7 @@
 package be.ucll.unit.service;
 
 import java.time.LocalDate;
+import java.time.ZoneId;
 import java.util.List;
 import java.util.Optional;
 
@@ -9,6 +10,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 
 import be.ucll.dto.UserItemResponseDTO;
 import be.ucll.exception.DomainException;
@@ -19,16 +21,15 @@ import be.ucll.model.UserItem;
 import be.ucll.repository.ItemRepository;
 import be.ucll.repository.UserItemRepository;
 import be.ucll.repository.UserRepository;
-import be.ucll.service.NotificationService;
+import be.ucll.scheduler.ReminderRescheduledEvent;
+import be.ucll.service.InventoryUpdatedEvent;
 import be.ucll.service.PushNotificationService;
 import be.ucll.service.UserItemService;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.ArgumentMatchers.anyString;
-import static org.mockito.ArgumentMatchers.contains;
-import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -50,10 +51,10 @@ class UserItemServiceTest {
     private PushNotificationService pushNotificationService;
 
     @Mock
-    private NotificationService notificationService;
+    private UserRepository userRepository;
 
     @Mock
-    private UserRepository userRepository;
+    private ApplicationEventPublisher eventPublisher;
 
     @InjectMocks
     private UserItemService userItemService;
@@ -62,6 +63,7 @@ class UserItemServiceTest {
     private User createMockUser(Long id) {
         User u = mock(User.class);
         when(u.getId()).thenReturn(id);
+        lenient().when(u.getZoneId()).thenReturn(ZoneId.systemDefault());
         return u;
     }
 
@@ -124,14 +126,11 @@ class UserItemServiceTest {
         // Then
         assertThat(result).hasSize(1);
         assertThat(result.get(0).id()).isEqualTo(validUserItemId);
+        // Opened today with a 3 day rule -> first reminder is due today
+        verify(userItemRepository).save(argThat(ui -> LocalDate.now().equals(ui.getNextReminderOn())));
 
-        // Verify if notif is sent
-        verify(notificationService).createAndSendNotification(
-            eq(user), 
-            eq("Inventory Update"), 
-            contains("Item 'Banana' successfully saved!"), 
-            any()
-        );
+        // Verify if the confirmation is handed to the coalescer
+        verify(eventPublisher).publishEvent(InventoryUpdatedEvent.saved(user.getId(), List.of(validUserItemId), List.of("Banana")));
     }
 
     @Test
@@ -168,7 +167,7 @@ class UserItemServiceTest {
         assertThat(result).hasSize(1);
         verify(userItemRepository).findById(validUserItemId);
         verify(userItemRepository).save(existingItem);
-        verify(notificationService).createAndSendNotification(eq(user), anyString(), anyString(), any());
+        verify(eventPublisher).publishEvent(any(InventoryUpdatedEvent.class));
         // Check if it was updated
         assertThat(existingItem.getDescription()).isEqualTo("New Desc");
     }
@@ -246,6 +245,8 @@ class UserItemServiceTest {
 
         // Then
         verify(userItemRepository).delete(userItem);
+        verify(eventPublisher).publishEvent(new ReminderRescheduledEvent(userItem.getId(), null));
+        verify(eventPublisher).publishEvent(InventoryUpdatedEvent.removed(validUserId));
     }
 
     @Test